@@ -0,0 +1,71 @@
+package sliep.jes.serializer
+
+import org.openjdk.jmh.annotations.*
+import java.lang.invoke.MethodHandle
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType
+import java.lang.reflect.Field
+import java.util.concurrent.TimeUnit
+
+// Generated accessors against plain reflection (the fallback) and against a hand-written static final handle, the
+// best the generated class can do
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+open class AccessorBenchmark {
+    class Target {
+        @JvmField
+        var count = 7
+        @JvmField
+        var label: String? = "label"
+    }
+
+    private val target = Target()
+    private val countField: Field = Target::class.java.getField("count")
+    private val labelField: Field = Target::class.java.getField("label")
+    private val accessors = FieldAccessor.of(arrayOf(countField, labelField))
+    private val countAccessor = accessors[0]
+    private val labelAccessor = accessors[1]
+
+    @Benchmark
+    fun generatedGetInt(): Int = countAccessor.getInt(target)
+
+    @Benchmark
+    fun reflectionGetInt(): Int = countField.getInt(target)
+
+    @Benchmark
+    fun constantGetInt(): Int = COUNT_GETTER.invokeExact(target as Any) as Int
+
+    @Benchmark
+    fun generatedSetInt() = countAccessor.setInt(target, 11)
+
+    @Benchmark
+    fun reflectionSetInt() = countField.setInt(target, 11)
+
+    @Benchmark
+    fun generatedGetObject(): Any? = labelAccessor.get(target)
+
+    @Benchmark
+    fun reflectionGetObject(): Any? = labelField.get(target)
+
+    @Benchmark
+    fun constantGetObject(): Any? = LABEL_GETTER.invokeExact(target as Any) as Any?
+
+    @Benchmark
+    fun generatedSetObject() = labelAccessor.set(target, "other")
+
+    @Benchmark
+    fun reflectionSetObject() = labelField.set(target, "other")
+
+    companion object {
+        @JvmField
+        val COUNT_GETTER: MethodHandle = MethodHandles.lookup().unreflectGetter(Target::class.java.getField("count"))
+            .asType(MethodType.methodType(Int::class.javaPrimitiveType, Any::class.java))
+        @JvmField
+        val LABEL_GETTER: MethodHandle = MethodHandles.lookup().unreflectGetter(Target::class.java.getField("label"))
+            .asType(MethodType.methodType(Any::class.java, Any::class.java))
+    }
+}
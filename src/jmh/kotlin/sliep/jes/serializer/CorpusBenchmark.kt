@@ -0,0 +1,78 @@
+@file:Suppress("SpellCheckingInspection")
+
+package sliep.jes.serializer
+
+import com.google.gson.Gson
+import org.json.JSONArray
+import org.openjdk.jmh.annotations.*
+import sliep.jes.serializer.PerformanceTest.TestJson
+import java.io.InputStreamReader
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+open class CorpusBenchmark {
+    @Param("small", "medium", "huge")
+    lateinit var size: String
+
+    private val gson = Gson()
+    private val parallel = ParallelOptions(ForkJoinPool.commonPool(), 0, 16)
+    private lateinit var text: String
+    private lateinit var bytes: ByteArray
+    private lateinit var binary: ByteArray
+    private lateinit var tree: JSONArray
+    private lateinit var model: Array<TestJson>
+
+    @Setup
+    fun setUp() {
+        val corpus = JSONArray(InputStreamReader(this::class.java.getResourceAsStream("/test.json")).use { it.readText() })
+        tree = when (size) {
+            "small" -> JSONArray().put(corpus.get(0))
+            "medium" -> corpus
+            "huge" -> JSONArray().apply { repeat(64) { for (element in corpus) put(element) } }
+            else -> throw IllegalArgumentException(size)
+        }
+        text = tree.toString()
+        bytes = text.toByteArray(Charsets.UTF_8)
+        model = tree.fromJson()
+        binary = model.toBinary()
+    }
+
+    @Benchmark
+    fun deserializeTree(): Array<TestJson> = JSONArray(text).fromJson()
+
+    @Benchmark
+    fun bindTree(): Array<TestJson> = tree.fromJson()
+
+    @Benchmark
+    fun bindTreeParallel(): Array<TestJson> = tree.fromJson(parallel)
+
+    @Benchmark
+    fun deserializeStream(): Array<TestJson> = bytes.inputStream().fromJson()
+
+    @Benchmark
+    fun deserializeBinary(): Array<TestJson> = binary.fromBinary()
+
+    @Benchmark
+    fun deserializeGson(): Array<TestJson> = gson.fromJson(text, Array<TestJson>::class.java)
+
+    @Benchmark
+    fun serializeTree(): String = model.toJson().toString()
+
+    @Benchmark
+    fun serializeTreeParallel(): String = model.toJson(parallel).toString()
+
+    @Benchmark
+    fun serializeStream(): String = model.toJsonString()
+
+    @Benchmark
+    fun serializeBinary(): ByteArray = model.toBinary()
+
+    @Benchmark
+    fun serializeGson(): String = gson.toJson(model)
+}
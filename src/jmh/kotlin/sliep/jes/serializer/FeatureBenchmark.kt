@@ -0,0 +1,100 @@
+@file:Suppress("SpellCheckingInspection")
+
+package sliep.jes.serializer
+
+import com.google.gson.Gson
+import org.json.JSONObject
+import org.openjdk.jmh.annotations.*
+import sliep.jes.serializer.annotations.JesDate
+import java.util.*
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+open class FeatureBenchmark {
+    private val gson = Gson()
+    private lateinit var arrays: Telemetry
+    private lateinit var arraysText: String
+    private lateinit var records: Records
+    private lateinit var recordsText: String
+
+    @Setup
+    fun setUp() {
+        val random = Random(42)
+        arrays = Telemetry(
+            IntArray(4096) { random.nextInt() },
+            LongArray(1024) { random.nextLong() },
+            DoubleArray(4096) { random.nextDouble() * 1000 }
+        )
+        arraysText = arrays.toJson().toString()
+        records = Records(HashMap<String, Record>().apply {
+            for (i in 0 until 256) put("record$i", Record(
+                Status.values()[i % Status.values().size],
+                Kind.values()[i % Kind.values().size],
+                Date(1577836800000L + i * 3600_000L),
+                "record $i"
+            ))
+        })
+        recordsText = records.toJson().toString()
+    }
+
+    @Benchmark
+    fun primitiveArraysDeserialize(): Telemetry = JSONObject(arraysText).fromJson()
+
+    @Benchmark
+    fun primitiveArraysDeserializeStream(): Telemetry = arraysText.reader().fromJson()
+
+    @Benchmark
+    fun primitiveArraysDeserializeGson(): Telemetry = gson.fromJson(arraysText, Telemetry::class.java)
+
+    @Benchmark
+    fun primitiveArraysSerialize(): String = arrays.toJson().toString()
+
+    @Benchmark
+    fun primitiveArraysSerializeStream(): String = arrays.toJsonString()
+
+    @Benchmark
+    fun primitiveArraysSerializeGson(): String = gson.toJson(arrays)
+
+    @Benchmark
+    fun mapsEnumsDatesDeserialize(): Records = JSONObject(recordsText).fromJson()
+
+    @Benchmark
+    fun mapsEnumsDatesDeserializeStream(): Records = recordsText.reader().fromJson()
+
+    @Benchmark
+    fun mapsEnumsDatesSerialize(): String = records.toJson().toString()
+
+    @Benchmark
+    fun mapsEnumsDatesSerializeStream(): String = records.toJsonString()
+
+    class Telemetry(
+        @JvmField val ints: IntArray,
+        @JvmField val longs: LongArray,
+        @JvmField val doubles: DoubleArray
+    )
+
+    class Records(
+        @JvmField val records: HashMap<String, Record>
+    )
+
+    class Record(
+        @JvmField val status: Status,
+        @JvmField val kind: Kind,
+        @JesDate("yyyy-MM-dd'T'HH:mm:ss")
+        @JvmField val created: Date,
+        @JvmField val label: String
+    )
+
+    enum class Status(override val value: Int) : ValueEnum {
+        CREATED(1), QUEUED(2), RUNNING(3), PAUSED(4), FAILED(5), COMPLETED(6), ARCHIVED(7), DELETED(8)
+    }
+
+    enum class Kind {
+        ALPHA, BETA, GAMMA, DELTA, EPSILON, ZETA, ETA, THETA
+    }
+}
@@ -0,0 +1,198 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import sliep.jes.reflection.JesUtilsKt;
+
+import java.lang.reflect.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Map;
+
+import static sliep.jes.serializer.BinaryWriter.*;
+import static sliep.jes.serializer.Deserializer.newCollection;
+import static sliep.jes.serializer.Deserializer.newMap;
+import static sliep.jes.serializer.Deserializer.objectValueString;
+import static sliep.jes.serializer.Deserializer.objectValueType;
+
+@SuppressWarnings({"unchecked", "rawtypes"})
+public final class BinaryDeserializer {
+    private BinaryDeserializer() {
+    }
+
+    @Nullable
+    public static Object decode(@NotNull byte[] data, @NotNull Type type) {
+        return decode(ByteBuffer.wrap(data), type);
+    }
+
+    // The wire is big-endian whatever the order of data, which is restored afterwards
+    @Nullable
+    public static Object decode(@NotNull ByteBuffer data, @NotNull Type type) {
+        ByteOrder order = data.order();
+        data.order(ByteOrder.BIG_ENDIAN);
+        try {
+            BinaryReader in = new BinaryReader(data);
+            in.version();
+            return readValue(in, type);
+        } catch (BufferUnderflowException e) {
+            throw new JSONException("Unexpected end of input at byte " + data.position(), e);
+        } finally {
+            data.order(order);
+        }
+    }
+
+    @Nullable
+    static Object readValue(@NotNull BinaryReader in, @NotNull Type type) {
+        int tag = in.peek();
+        if (tag == NULL) {
+            in.tag();
+            return null;
+        }
+        if (tag == ARRAY || (tag >= INT_ARRAY && tag <= BOOLEAN_ARRAY)) return readArray(in, type);
+        if (tag == OBJECT) return readObject(in, type);
+        return bind(in.nextScalar(), type);
+    }
+
+    @Nullable
+    private static Object bind(@NotNull Object jes, @NotNull Type type) {
+        if (jes == JSONObject.NULL) return null;
+        if (type instanceof Class) return objectValueType(jes, (Class<?>) type);
+        if (jes instanceof String) return objectValueString((String) jes, type);
+        return jes;
+    }
+
+    @NotNull
+    private static Object readArray(@NotNull BinaryReader in, @NotNull Type arrayType) {
+        if (arrayType instanceof Class<?>) {
+            if (JSONArray.class == arrayType) return in.nextValue();
+            Class<?> componentType = ((Class<?>) arrayType).getComponentType();
+            if (componentType == null)
+                throw new IllegalStateException("Expected array type, found " + arrayType.getTypeName());
+            return readArray(in, componentType, componentType);
+        }
+        if (arrayType instanceof GenericArrayType) {
+            Type componentType = ((GenericArrayType) arrayType).getGenericComponentType();
+            return readArray(in, (Class<?>) (componentType instanceof Class<?> ? componentType : ((ParameterizedType) componentType).getRawType()), componentType);
+        }
+        if (arrayType instanceof ParameterizedType) {
+            Class<?> type = (Class<?>) ((ParameterizedType) arrayType).getRawType();
+            Type componentType = ((ParameterizedType) arrayType).getActualTypeArguments()[0];
+            if (in.peek() != ARRAY) {
+                Object[] elements = in.nextPrimitiveArray();
+                Collection<Object> result = newCollection(type, arrayType, elements.length);
+                for (Object element : elements) result.add(bind(element, componentType));
+                return result;
+            }
+            in.tag();
+            int length = in.length();
+            Collection<Object> result = newCollection(type, arrayType, length);
+            for (int i = 0; i < length; i++) result.add(readValue(in, componentType));
+            return result;
+        }
+        throw new IllegalStateException("Expected array or collection type, found " + arrayType.getTypeName());
+    }
+
+    @NotNull
+    private static Object readArray(@NotNull BinaryReader in, @NotNull Class<?> componentClass, @NotNull Type componentType) {
+        if (in.peek() != ARRAY) {
+            if (componentClass.isPrimitive()) {
+                Object result = in.nextPrimitiveArray(componentClass);
+                if (result != null) return result;
+            }
+            Object[] elements = in.nextPrimitiveArray();
+            Object result = Array.newInstance(componentClass, elements.length);
+            for (int i = 0; i < elements.length; i++) Array.set(result, i, bind(elements[i], componentType));
+            return result;
+        }
+        in.tag();
+        int length = in.length();
+        Object result = Array.newInstance(componentClass, length);
+        if (componentClass.isPrimitive())
+            for (int i = 0; i < length; i++) Array.set(result, i, readValue(in, componentType));
+        else {
+            Object[] array = (Object[]) result;
+            for (int i = 0; i < length; i++) array[i] = readValue(in, componentType);
+        }
+        return result;
+    }
+
+    @NotNull
+    private static Object readObject(@NotNull BinaryReader in, @NotNull Type genericType) {
+        if (genericType instanceof Class<?>) {
+            if (JSONObject.class == genericType) return in.nextValue();
+            Class<?> type = (Class<?>) genericType;
+            JesCodec codec = CodecRegistry.get(type);
+            if (codec != null) return codec.read(in);
+            Object result = JesUtilsKt.accessor.allocateInstance(type);
+            ClassBinding binding = ClassBinding.of(type);
+            in.expect(OBJECT);
+            while (!in.consume(END)) {
+                String key = in.nextKey();
+                if (in.consume(NULL)) continue;
+                ClassBinding.Slot slot = binding.get(key);
+                if (slot == null) in.skipValue();
+                else try {
+                    readField(in, slot, result);
+                } catch (Throwable e) {
+                    throw new JSONException("Failed to deserialize field " + slot.field.getDeclaringClass().getSimpleName() + "." + key + " of type " + slot.field.getType().getName(), e);
+                }
+            }
+            return result;
+        }
+        if (genericType instanceof ParameterizedType) {
+            Class<?> type = (Class<?>) ((ParameterizedType) genericType).getRawType();
+            Type componentType = ((ParameterizedType) genericType).getActualTypeArguments()[1];
+            Map<Object, Object> result = newMap(type, genericType, 16);
+            in.expect(OBJECT);
+            while (!in.consume(END)) {
+                String key = in.nextKey();
+                result.put(key, readValue(in, componentType));
+            }
+            return result;
+        }
+        throw new IllegalStateException("Expected object or map type, found " + genericType.getTypeName());
+    }
+
+    private static void readField(@NotNull BinaryReader in, @NotNull ClassBinding.Slot slot, @NotNull Object target) throws IllegalAccessException {
+        if (slot.serializer != null) {
+            slot.accessor.set(target, slot.serializer.fromJson(slot.annotation, in.nextValue(), slot.type));
+            return;
+        }
+        if (slot.intern) {
+            StringCache values = in.values;
+            in.values = StringCache.fields();
+            try {
+                slot.accessor.set(target, readValue(in, slot.type));
+            } finally {
+                in.values = values;
+            }
+            return;
+        }
+        Class<?> type = slot.rawType;
+        int tag = in.peek();
+        if (type.isPrimitive() && (tag == INT || tag == DOUBLE || tag == FLOAT || tag == TRUE || tag == FALSE)) {
+            if (type == int.class) {
+                slot.accessor.setInt(target, (int) in.nextLong());
+                return;
+            }
+            if (type == long.class) {
+                slot.accessor.setLong(target, in.nextLong());
+                return;
+            }
+            if (type == double.class) {
+                slot.accessor.setDouble(target, in.nextDouble());
+                return;
+            }
+            if (type == boolean.class) {
+                slot.accessor.setBoolean(target, in.nextBoolean());
+                return;
+            }
+        }
+        slot.accessor.set(target, readValue(in, slot.type));
+    }
+}
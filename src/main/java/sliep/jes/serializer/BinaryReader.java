@@ -0,0 +1,359 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.lang.reflect.Type;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static sliep.jes.serializer.BinaryWriter.*;
+
+// Public members are the streaming API of JesCodec, mirroring JsonReader's
+public final class BinaryReader {
+    @NotNull
+    private final ByteBuffer in;
+    @NotNull
+    private final ArrayList<String> strings = new ArrayList<>();
+    @Nullable
+    private final StringCache keys = StringCache.getGlobal();
+    @Nullable
+    StringCache values = keys;
+
+    BinaryReader(@NotNull ByteBuffer in) {
+        this.in = in;
+    }
+
+    void version() {
+        int version = tag();
+        if (version != VERSION) throw syntaxError("Unsupported binary format version 0x" + Integer.toHexString(version));
+    }
+
+    int peek() {
+        if (!in.hasRemaining()) throw syntaxError("Unexpected end of input");
+        return in.get(in.position()) & 0xFF;
+    }
+
+    int tag() {
+        int tag = peek();
+        in.position(in.position() + 1);
+        return tag;
+    }
+
+    void expect(int tag) {
+        if (tag() != tag) {
+            in.position(in.position() - 1);
+            throw syntaxError("Unexpected tag 0x" + Integer.toHexString(peek()));
+        }
+    }
+
+    boolean consume(int tag) {
+        if (peek() != tag) return false;
+        in.position(in.position() + 1);
+        return true;
+    }
+
+    long varint() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.hasRemaining()) throw syntaxError("Unexpected end of input");
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return result;
+        }
+        throw syntaxError("Malformed varint");
+    }
+
+    int length() {
+        long length = varint();
+        if (length < 0 || length > in.remaining()) throw syntaxError("Invalid length " + length);
+        return (int) length;
+    }
+
+    @NotNull
+    String string() {
+        int length = length();
+        String result;
+        if (in.hasArray()) result = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        else {
+            byte[] bytes = new byte[length];
+            in.duplicate().get(bytes);
+            result = new String(bytes, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + length);
+        return result;
+    }
+
+    public boolean beginObject() {
+        expect(OBJECT);
+        return !consume(END);
+    }
+
+    public boolean nextMember() {
+        return !consume(END);
+    }
+
+    @NotNull
+    public String nextName() {
+        return nextKey();
+    }
+
+    // Index of the name in names, -1 if absent
+    public int nextName(@NotNull NameTable names) {
+        return names.get(nextKey());
+    }
+
+    public boolean nextNull() {
+        return consume(NULL);
+    }
+
+    @NotNull
+    public String nextString() {
+        if (!isString(peek())) throw syntaxError("Expected string");
+        return nextString(false);
+    }
+
+    private static boolean isString(int tag) {
+        return tag == STRING || tag == STRING_REF || (tag >= SHORT_STRING_REF && tag < SHORT_STRING_REF + SHORT_REFS);
+    }
+
+    @NotNull
+    String nextKey() {
+        if (!isString(peek())) throw syntaxError("Expected key");
+        return nextString(true);
+    }
+
+    @NotNull
+    private String nextString(boolean key) {
+        int tag = tag();
+        if (tag == STRING) {
+            String result = string();
+            StringCache cache = key ? keys : values;
+            if (cache != null) result = key ? cache.canonicalizeKey(result) : cache.canonicalize(result);
+            if ((key || result.length() <= MAX_SHARED_LENGTH) && strings.size() < MAX_STRINGS) strings.add(result);
+            return result;
+        }
+        long index = tag == STRING_REF ? varint() : tag - SHORT_STRING_REF;
+        if (index < 0 || index >= strings.size()) throw syntaxError("Invalid string reference " + index);
+        return strings.get((int) index);
+    }
+
+    @NotNull
+    Number nextNumber() {
+        switch (tag()) {
+            case INT:
+                long zigzag = varint();
+                long value = (zigzag >>> 1) ^ -(zigzag & 1);
+                if (value == (int) value) return (int) value;
+                return value;
+            case DOUBLE:
+                return in.getDouble();
+            case FLOAT:
+                return in.getFloat();
+            case BIG_INTEGER:
+                return new BigInteger(string());
+            case BIG_DECIMAL:
+                return new BigDecimal(string());
+        }
+        in.position(in.position() - 1);
+        throw syntaxError("Expected number");
+    }
+
+    public long nextLong() {
+        int tag = peek();
+        if (isString(tag)) return Long.parseLong(nextString(false));
+        if (tag != INT) return nextNumber().longValue();
+        in.position(in.position() + 1);
+        long zigzag = varint();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public double nextDouble() {
+        int tag = peek();
+        if (isString(tag)) return NumberCodec.parseDouble(nextString(false));
+        if (tag != DOUBLE) return nextNumber().doubleValue();
+        in.position(in.position() + 1);
+        return in.getDouble();
+    }
+
+    public float nextFloat() {
+        int tag = peek();
+        if (isString(tag)) return NumberCodec.parseFloat(nextString(false));
+        if (tag != FLOAT) return nextNumber().floatValue();
+        in.position(in.position() + 1);
+        return in.getFloat();
+    }
+
+    public boolean nextBoolean() {
+        if (consume(TRUE)) return true;
+        if (consume(FALSE)) return false;
+        if (isString(peek())) return Boolean.parseBoolean(nextString(false));
+        return nextNumber().intValue() != 0;
+    }
+
+    public char nextChar() {
+        if (!isString(peek())) return (char) nextNumber().intValue();
+        String value = nextString(false);
+        if (value.length() != 1) throw syntaxError("Expected single character");
+        return value.charAt(0);
+    }
+
+    // Tree value: JSONObject, JSONArray, String, Number, Boolean or JSONObject.NULL
+    @NotNull
+    public Object nextValue() {
+        int tag = peek();
+        switch (tag) {
+            case NULL:
+            case TRUE:
+            case FALSE:
+            case STRING:
+            case STRING_REF:
+                return nextScalar();
+            case ARRAY: {
+                in.position(in.position() + 1);
+                int length = length();
+                JSONArray result = new JSONArray();
+                for (int i = 0; i < length; i++) result.put(nextValue());
+                return result;
+            }
+            case OBJECT: {
+                in.position(in.position() + 1);
+                JSONObject result = new JSONObject();
+                while (!consume(END)) {
+                    String key = nextKey();
+                    result.put(key, nextValue());
+                }
+                return result;
+            }
+        }
+        if (tag >= INT_ARRAY && tag <= BOOLEAN_ARRAY) {
+            JSONArray result = new JSONArray();
+            for (Object element : nextPrimitiveArray()) result.put(element);
+            return result;
+        }
+        return nextScalar();
+    }
+
+    @NotNull
+    Object nextScalar() {
+        switch (peek()) {
+            case NULL:
+                in.position(in.position() + 1);
+                return JSONObject.NULL;
+            case TRUE:
+                in.position(in.position() + 1);
+                return Boolean.TRUE;
+            case FALSE:
+                in.position(in.position() + 1);
+                return Boolean.FALSE;
+            case STRING:
+            case STRING_REF:
+                return nextString(false);
+        }
+        if (peek() >= SHORT_STRING_REF && peek() < SHORT_STRING_REF + SHORT_REFS) return nextString(false);
+        return nextNumber();
+    }
+
+    @NotNull
+    Object[] nextPrimitiveArray() {
+        int tag = tag();
+        int length = (int) Math.min(varint(), in.remaining());
+        Object[] result = new Object[length];
+        for (int i = 0; i < length; i++)
+            switch (tag) {
+                case INT_ARRAY:
+                    result[i] = in.getInt();
+                    break;
+                case LONG_ARRAY:
+                    result[i] = in.getLong();
+                    break;
+                case DOUBLE_ARRAY:
+                    result[i] = in.getDouble();
+                    break;
+                case FLOAT_ARRAY:
+                    result[i] = in.getFloat();
+                    break;
+                case SHORT_ARRAY:
+                    result[i] = (int) in.getShort();
+                    break;
+                case BYTE_ARRAY:
+                    result[i] = (int) in.get();
+                    break;
+                case CHAR_ARRAY:
+                    result[i] = String.valueOf(in.getChar());
+                    break;
+                case BOOLEAN_ARRAY:
+                    result[i] = in.get() != 0;
+                    break;
+                default:
+                    throw syntaxError("Expected primitive array");
+            }
+        return result;
+    }
+
+    @Nullable
+    Object nextPrimitiveArray(@NotNull Class<?> componentType) {
+        int tag = tag();
+        long size = varint();
+        int width = tag == LONG_ARRAY || tag == DOUBLE_ARRAY ? 8 : tag == INT_ARRAY || tag == FLOAT_ARRAY ? 4 :
+                tag == SHORT_ARRAY || tag == CHAR_ARRAY ? 2 : 1;
+        if (size < 0 || size * width > in.remaining()) throw syntaxError("Invalid length " + size);
+        int length = (int) size;
+        Object result;
+        if (tag == INT_ARRAY && componentType == int.class) in.asIntBuffer().get((int[]) (result = new int[length]));
+        else if (tag == LONG_ARRAY && componentType == long.class) in.asLongBuffer().get((long[]) (result = new long[length]));
+        else if (tag == DOUBLE_ARRAY && componentType == double.class) in.asDoubleBuffer().get((double[]) (result = new double[length]));
+        else if (tag == FLOAT_ARRAY && componentType == float.class) in.asFloatBuffer().get((float[]) (result = new float[length]));
+        else if (tag == SHORT_ARRAY && componentType == short.class) in.asShortBuffer().get((short[]) (result = new short[length]));
+        else if (tag == BYTE_ARRAY && componentType == byte.class) in.duplicate().get((byte[]) (result = new byte[length]));
+        else if (tag == CHAR_ARRAY && componentType == char.class) in.asCharBuffer().get((char[]) (result = new char[length]));
+        else {
+            in.position(in.position() - 1 - varintSize(length));
+            return null;
+        }
+        in.position(in.position() + length * width);
+        return result;
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    // Binds the next value to type like the reflective decoder does, null for a null
+    @Nullable
+    public Object readValue(@NotNull Type type) {
+        return BinaryDeserializer.readValue(this, type);
+    }
+
+    public void skipValue() {
+        int tag = peek();
+        if (tag == ARRAY) {
+            in.position(in.position() + 1);
+            int length = length();
+            for (int i = 0; i < length; i++) skipValue();
+        } else if (tag == OBJECT) {
+            in.position(in.position() + 1);
+            while (!consume(END)) {
+                nextKey();
+                skipValue();
+            }
+        } else if (tag >= INT_ARRAY && tag <= BOOLEAN_ARRAY) nextPrimitiveArray();
+        else nextScalar();
+    }
+
+    @NotNull
+    JSONException syntaxError(@NotNull String message) {
+        return new JSONException(message + " at byte " + in.position());
+    }
+}
@@ -0,0 +1,168 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import static sliep.jes.serializer.Serializer.MODIFIER_ENUM;
+
+@SuppressWarnings({"unchecked", "rawtypes"})
+public final class BinarySerializer {
+    private BinarySerializer() {
+    }
+
+    @NotNull
+    public static byte[] encode(@Nullable Object value) {
+        BinaryWriter out = new BinaryWriter(ByteBuffer.allocate(256), true);
+        out.version();
+        write(value, out);
+        ByteBuffer buffer = out.buffer();
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    // The wire is big-endian whatever the order of target, which is restored afterwards
+    public static void encode(@Nullable Object value, @NotNull ByteBuffer target) {
+        ByteOrder order = target.order();
+        target.order(ByteOrder.BIG_ENDIAN);
+        try {
+            BinaryWriter out = new BinaryWriter(target, false);
+            out.version();
+            write(value, out);
+        } finally {
+            target.order(order);
+        }
+    }
+
+    public static void encode(@Nullable Object value, @NotNull OutputStream out) throws IOException {
+        BinaryWriter writer = new BinaryWriter(ByteBuffer.allocate(8192), true);
+        writer.version();
+        write(value, writer);
+        ByteBuffer buffer = writer.buffer();
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    static void write(@Nullable Object value, @NotNull BinaryWriter out) {
+        if (value == null || value == JSONObject.NULL) {
+            out.tag(BinaryWriter.NULL);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (value instanceof String) {
+            out.writeString((String) value);
+            return;
+        }
+        if (value instanceof Number) {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+                out.writeLong(((Number) value).longValue());
+            else if (value instanceof Double) out.writeDouble((Double) value);
+            else if (value instanceof Float) out.writeFloat((Float) value);
+            else if (value instanceof BigInteger) out.writeString(BinaryWriter.BIG_INTEGER, value.toString());
+            else out.writeString(BinaryWriter.BIG_DECIMAL, JSONObject.numberToString((Number) value));
+            return;
+        }
+        if (type == Boolean.class) {
+            out.writeBoolean((Boolean) value);
+            return;
+        }
+        if (type == Character.class) {
+            out.writeString(value.toString());
+            return;
+        }
+        if (type.isArray()) {
+            if (value instanceof Object[]) {
+                Object[] array = (Object[]) value;
+                out.tag(BinaryWriter.ARRAY);
+                out.varint(array.length);
+                for (Object element : array) write(element, out);
+            } else if (value instanceof int[]) out.writeArray((int[]) value);
+            else if (value instanceof long[]) out.writeArray((long[]) value);
+            else if (value instanceof double[]) out.writeArray((double[]) value);
+            else if (value instanceof float[]) out.writeArray((float[]) value);
+            else if (value instanceof short[]) out.writeArray((short[]) value);
+            else if (value instanceof byte[]) out.writeArray((byte[]) value);
+            else if (value instanceof char[]) out.writeArray((char[]) value);
+            else if (value instanceof boolean[]) out.writeArray((boolean[]) value);
+            return;
+        }
+        if ((type.getModifiers() & MODIFIER_ENUM) != 0) {
+            if (value instanceof ValueEnum) out.writeLong(((ValueEnum) value).getValue());
+            else out.writeString(((Enum<?>) value).name());
+            return;
+        }
+        if (value instanceof Iterable<?>) {
+            Collection<?> elements;
+            if (value instanceof Collection<?>) elements = (Collection<?>) value;
+            else {
+                ArrayList<Object> list = new ArrayList<>();
+                for (Object element : (Iterable<?>) value) list.add(element);
+                elements = list;
+            }
+            out.tag(BinaryWriter.ARRAY);
+            out.varint(elements.size());
+            for (Object element : elements) write(element, out);
+            return;
+        }
+        if (value instanceof JSONObject) {
+            JSONObject json = (JSONObject) value;
+            out.tag(BinaryWriter.OBJECT);
+            for (String key : json.keySet()) {
+                out.writeKey(key);
+                write(json.opt(key), out);
+            }
+            out.tag(BinaryWriter.END);
+            return;
+        }
+        JesCodec codec = CodecRegistry.get(type);
+        if (codec != null) {
+            codec.write(value, out);
+            return;
+        }
+        out.tag(BinaryWriter.OBJECT);
+        if (value instanceof Map<?, ?>) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object element = entry.getValue();
+                if (element == null) continue;
+                out.writeKey(entry.getKey().toString());
+                write(element, out);
+            }
+        } else for (ClassBinding.Slot slot : ClassBinding.of(type).slots)
+            try {
+                if (slot.serializer == null && writePrimitiveField(slot, value, out)) continue;
+                Object fValue = slot.accessor.get(value);
+                if (fValue == null) continue;
+                out.writeKey(slot.name);
+                write(slot.serializer != null ? slot.serializer.toJson(slot.annotation, fValue) : fValue, out);
+            } catch (IllegalAccessException ignored) {
+            }
+        out.tag(BinaryWriter.END);
+    }
+
+    private static boolean writePrimitiveField(@NotNull ClassBinding.Slot slot, @NotNull Object value, @NotNull BinaryWriter out) throws IllegalAccessException {
+        Class<?> type = slot.rawType;
+        if (type == int.class) {
+            out.writeKey(slot.name);
+            out.writeLong(slot.accessor.getInt(value));
+        } else if (type == long.class) {
+            out.writeKey(slot.name);
+            out.writeLong(slot.accessor.getLong(value));
+        } else if (type == double.class) {
+            out.writeKey(slot.name);
+            out.writeDouble(slot.accessor.getDouble(value));
+        } else if (type == boolean.class) {
+            out.writeKey(slot.name);
+            out.writeBoolean(slot.accessor.getBoolean(value));
+        } else return false;
+        return true;
+    }
+}
@@ -0,0 +1,208 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+// Public members are the streaming API of JesCodec, mirroring JsonWriter's
+public final class BinaryWriter {
+    // First byte of every document, outside the tag range so unversioned data is rejected
+    static final int VERSION = 0xB1;
+    static final int NULL = 0x00;
+    static final int FALSE = 0x01;
+    static final int TRUE = 0x02;
+    static final int INT = 0x03;
+    static final int DOUBLE = 0x04;
+    static final int FLOAT = 0x05;
+    static final int BIG_INTEGER = 0x06;
+    static final int BIG_DECIMAL = 0x07;
+    static final int STRING = 0x08;
+    static final int STRING_REF = 0x09;
+    static final int ARRAY = 0x0A;
+    static final int OBJECT = 0x0B;
+    static final int END = 0x0C;
+    static final int INT_ARRAY = 0x10;
+    static final int LONG_ARRAY = 0x11;
+    static final int DOUBLE_ARRAY = 0x12;
+    static final int FLOAT_ARRAY = 0x13;
+    static final int SHORT_ARRAY = 0x14;
+    static final int BYTE_ARRAY = 0x15;
+    static final int CHAR_ARRAY = 0x16;
+    static final int BOOLEAN_ARRAY = 0x17;
+    static final int SHORT_STRING_REF = 0x40;
+    static final int SHORT_REFS = 0x40;
+    static final int MAX_STRINGS = 65536;
+    static final int MAX_SHARED_LENGTH = 32;
+    @NotNull
+    private final HashMap<String, Integer> strings = new HashMap<>();
+    @NotNull
+    private ByteBuffer buffer;
+    private final boolean growable;
+
+    BinaryWriter(@NotNull ByteBuffer buffer, boolean growable) {
+        this.buffer = buffer;
+        this.growable = growable;
+    }
+
+    void version() {
+        tag(VERSION);
+    }
+
+    @NotNull
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    private void ensure(int size) {
+        if (buffer.remaining() >= size) return;
+        if (!growable) throw new BufferOverflowException();
+        int capacity = Math.max(buffer.capacity() << 1, buffer.position() + size);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+    void tag(int tag) {
+        ensure(1);
+        buffer.put((byte) tag);
+    }
+
+    void varint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public void beginObject() {
+        tag(OBJECT);
+    }
+
+    public void writeName(@NotNull String name) {
+        writeShared(name);
+    }
+
+    public void endObject() {
+        tag(END);
+    }
+
+    public void writeValue(@Nullable Object value) {
+        BinarySerializer.write(value, this);
+    }
+
+    public void writeNull() {
+        tag(NULL);
+    }
+
+    public void writeLong(long value) {
+        tag(INT);
+        varint((value << 1) ^ (value >> 63));
+    }
+
+    public void writeDouble(double value) {
+        ensure(9);
+        buffer.put((byte) DOUBLE).putDouble(value);
+    }
+
+    public void writeFloat(float value) {
+        ensure(5);
+        buffer.put((byte) FLOAT).putFloat(value);
+    }
+
+    public void writeBoolean(boolean value) {
+        tag(value ? TRUE : FALSE);
+    }
+
+    void writeString(int tag, @NotNull String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        tag(tag);
+        varint(bytes.length);
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    public void writeString(@NotNull String value) {
+        if (value.length() <= MAX_SHARED_LENGTH) writeShared(value);
+        else writeString(STRING, value);
+    }
+
+    void writeKey(@NotNull String key) {
+        writeShared(key);
+    }
+
+    // Keys and short strings are written once and then referenced by their index in the document's string table
+    private void writeShared(@NotNull String value) {
+        Integer index = strings.get(value);
+        if (index == null) {
+            writeString(STRING, value);
+            if (strings.size() < MAX_STRINGS) strings.put(value, strings.size());
+        } else if (index < SHORT_REFS) tag(SHORT_STRING_REF + index);
+        else {
+            tag(STRING_REF);
+            varint(index);
+        }
+    }
+
+    void writeArray(@NotNull int[] array) {
+        header(INT_ARRAY, array.length, 4);
+        buffer.asIntBuffer().put(array);
+        skip(array.length * 4);
+    }
+
+    void writeArray(@NotNull long[] array) {
+        header(LONG_ARRAY, array.length, 8);
+        buffer.asLongBuffer().put(array);
+        skip(array.length * 8);
+    }
+
+    void writeArray(@NotNull double[] array) {
+        header(DOUBLE_ARRAY, array.length, 8);
+        buffer.asDoubleBuffer().put(array);
+        skip(array.length * 8);
+    }
+
+    void writeArray(@NotNull float[] array) {
+        header(FLOAT_ARRAY, array.length, 4);
+        buffer.asFloatBuffer().put(array);
+        skip(array.length * 4);
+    }
+
+    void writeArray(@NotNull short[] array) {
+        header(SHORT_ARRAY, array.length, 2);
+        buffer.asShortBuffer().put(array);
+        skip(array.length * 2);
+    }
+
+    void writeArray(@NotNull byte[] array) {
+        header(BYTE_ARRAY, array.length, 1);
+        buffer.put(array);
+    }
+
+    void writeArray(@NotNull char[] array) {
+        header(CHAR_ARRAY, array.length, 2);
+        buffer.asCharBuffer().put(array);
+        skip(array.length * 2);
+    }
+
+    void writeArray(@NotNull boolean[] array) {
+        header(BOOLEAN_ARRAY, array.length, 1);
+        for (boolean element : array) buffer.put((byte) (element ? 1 : 0));
+    }
+
+    private void header(int tag, int length, int width) {
+        tag(tag);
+        varint(length);
+        ensure((int) Math.min(Integer.MAX_VALUE, (long) length * width));
+    }
+
+    private void skip(int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+}
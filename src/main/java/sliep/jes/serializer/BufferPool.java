@@ -0,0 +1,44 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+// Bounded lock-free pool striped by thread id: unlike a ThreadLocal it does not grow with the number of (virtual) threads
+final class BufferPool<T> {
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+    static final BufferPool<char[]> CHARS = new BufferPool<>(() -> new char[8192]);
+    static final BufferPool<byte[]> BYTES = new BufferPool<>(() -> new byte[8192]);
+    @NotNull
+    private final AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(STRIPES);
+    @NotNull
+    private final Supplier<T> factory;
+
+    private BufferPool(@NotNull Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    @NotNull
+    T acquire() {
+        int index = index();
+        for (int i = 0; i < 2; i++) {
+            int slot = (index + i) & (STRIPES - 1);
+            T value = slots.get(slot);
+            if (value != null && slots.compareAndSet(slot, value, null)) return value;
+        }
+        return factory.get();
+    }
+
+    void release(@NotNull T value) {
+        int index = index();
+        for (int i = 0; i < 2; i++) {
+            int slot = (index + i) & (STRIPES - 1);
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, value)) return;
+        }
+    }
+
+    private static int index() {
+        return (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
@@ -0,0 +1,113 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+
+public final class ByteBufferChain {
+    private final int segmentSize;
+    @NotNull
+    private final ArrayList<ByteBuffer> segments = new ArrayList<>();
+    private int count = 0;
+    @Nullable
+    private ByteBuffer[] pending;
+    private int pendingIndex;
+
+    public ByteBufferChain() {
+        this(16384);
+    }
+
+    public ByteBufferChain(int segmentSize) {
+        if (segmentSize < 16) throw new IllegalArgumentException("segmentSize must be at least 16");
+        this.segmentSize = segmentSize;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    @NotNull
+    ByteBuffer next() {
+        pending = null;
+        ByteBuffer segment;
+        if (count < segments.size()) {
+            segment = segments.get(count);
+            segment.clear();
+        } else segments.add(segment = ByteBuffer.allocateDirect(segmentSize));
+        count++;
+        return segment;
+    }
+
+    public long size() {
+        long size = 0;
+        for (int i = 0; i < count; i++) size += segments.get(i).position();
+        return size;
+    }
+
+    @NotNull
+    public ByteBuffer[] buffers() {
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            buffers[i] = segments.get(i).duplicate();
+            buffers[i].flip();
+        }
+        return buffers;
+    }
+
+    public boolean hasRemaining() {
+        ByteBuffer[] pending = pending();
+        for (int i = pendingIndex; i < pending.length; i++) if (pending[i].hasRemaining()) return true;
+        return false;
+    }
+
+    // A non-blocking channel may accept only part of the content: the next call resumes where this one stopped
+    public long writeTo(@NotNull WritableByteChannel channel) throws IOException {
+        ByteBuffer[] pending = pending();
+        long written = 0;
+        while (true) {
+            while (pendingIndex < pending.length && !pending[pendingIndex].hasRemaining()) pendingIndex++;
+            if (pendingIndex == pending.length) break;
+            long result;
+            if (channel instanceof GatheringByteChannel)
+                result = ((GatheringByteChannel) channel).write(pending, pendingIndex, pending.length - pendingIndex);
+            else result = channel.write(pending[pendingIndex]);
+            if (result <= 0) break;
+            written += result;
+        }
+        return written;
+    }
+
+    @NotNull
+    private ByteBuffer[] pending() {
+        if (pending == null) {
+            pending = buffers();
+            pendingIndex = 0;
+        }
+        return pending;
+    }
+
+    @NotNull
+    public byte[] toByteArray() {
+        long size = size();
+        if (size > Integer.MAX_VALUE) throw new IllegalStateException("Content too large for an array: " + size);
+        byte[] result = new byte[(int) size];
+        int offset = 0;
+        for (ByteBuffer buffer : buffers()) {
+            int length = buffer.remaining();
+            buffer.get(result, offset, length);
+            offset += length;
+        }
+        return result;
+    }
+
+    // Segments are kept and reused by the next write
+    public void clear() {
+        count = 0;
+        pending = null;
+    }
+}
@@ -0,0 +1,86 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+final class ByteBufferReader extends Reader {
+    @NotNull
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    @Nullable
+    private final FileChannel channel;
+    private final long size;
+    private final long window;
+    private long offset;
+    @NotNull
+    private ByteBuffer buffer;
+    private boolean flushed = false;
+
+    ByteBufferReader(@NotNull ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+        this.size = buffer.remaining();
+        this.window = size;
+        this.offset = 0;
+    }
+
+    ByteBufferReader(@NotNull FileChannel channel) throws IOException {
+        this(channel, 1 << 26);
+    }
+
+    ByteBufferReader(@NotNull FileChannel channel, long window) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.window = window;
+        this.offset = 0;
+        this.buffer = map(0);
+    }
+
+    @NotNull
+    private ByteBuffer map(long position) throws IOException {
+        assert channel != null;
+        offset = position;
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(window, size - position));
+    }
+
+    private boolean lastWindow() {
+        return channel == null || offset + buffer.limit() >= size;
+    }
+
+    @Override
+    public int read(@NotNull char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (flushed) return -1;
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.position() == off) {
+            boolean last = lastWindow();
+            CoderResult result = decoder.decode(buffer, out, last);
+            if (result.isOverflow()) break;
+            if (result.isError()) result.throwException();
+            if (!last) {
+                buffer = map(offset + buffer.position());
+                continue;
+            }
+            if (decoder.flush(out).isUnderflow()) flushed = true;
+            break;
+        }
+        int read = out.position() - off;
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+}
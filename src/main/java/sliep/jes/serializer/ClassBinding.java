@@ -0,0 +1,124 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import sliep.jes.reflection.JesUtilsKt;
+import sliep.jes.serializer.annotations.JesIntern;
+import sliep.jes.serializer.annotations.JsonName;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static sliep.jes.serializer.Serializer.MODIFIER_STATIC_TRANSIENT;
+
+@SuppressWarnings("rawtypes")
+final class ClassBinding {
+    private static final ConcurrentHashMap<Class<?>, ClassBinding> bindings = new ConcurrentHashMap<>();
+    @NotNull
+    final Slot[] slots;
+    // Indexes match slots
+    @NotNull
+    final NameTable names;
+    @NotNull
+    private final Map<Class<?>, UserSerializer> registry;
+
+    // Reuses the field accessors of previous, the outdated binding of the same type, if any
+    private ClassBinding(@NotNull Class<?> type, @Nullable ClassBinding previous) {
+        ArrayList<Field> fields = new ArrayList<>();
+        for (Field field : JesUtilsKt.accessor.fields(type))
+            if ((field.getModifiers() & MODIFIER_STATIC_TRANSIENT) == 0) fields.add(field);
+        FieldAccessor[] accessors = new FieldAccessor[fields.size()];
+        if (previous != null) for (int i = 0; i < accessors.length; i++) accessors[i] = previous.slots[i].accessor;
+        else accessors = FieldAccessor.of(fields.toArray(new Field[0]));
+        ArrayList<Slot> slots = new ArrayList<>();
+        Map<Class<?>, UserSerializer> registry;
+        // Resolving annotations may register new serializers: resolve again until the registry is stable
+        do {
+            slots.clear();
+            registry = SerializerRegistry.snapshot();
+            for (int i = 0; i < accessors.length; i++) slots.add(new Slot(fields.get(i), accessors[i], registry));
+        } while (registry != SerializerRegistry.snapshot());
+        this.slots = slots.toArray(new Slot[0]);
+        String[] names = new String[this.slots.length];
+        for (int i = 0; i < names.length; i++) names[i] = this.slots[i].name;
+        this.names = NameTable.of(names);
+        this.registry = registry;
+    }
+
+    @NotNull
+    static ClassBinding of(@NotNull Class<?> type) {
+        ClassBinding binding = bindings.get(type);
+        if (binding != null && binding.registry == SerializerRegistry.snapshot()) return binding;
+        ClassBinding update = new ClassBinding(type, binding);
+        if (binding == null) {
+            binding = bindings.putIfAbsent(type, update);
+            return binding != null ? binding : update;
+        }
+        bindings.replace(type, binding, update);
+        return update;
+    }
+
+    @Nullable
+    Slot get(@NotNull String name) {
+        int index = names.get(name);
+        return index < 0 ? null : slots[index];
+    }
+
+    static final class Slot {
+        @NotNull
+        final Field field;
+        @NotNull
+        final FieldAccessor accessor;
+        @NotNull
+        final String name;
+        @NotNull
+        final Class<?> rawType;
+        @NotNull
+        final Type type;
+        @Nullable
+        final Annotation annotation;
+        @Nullable
+        final UserSerializer serializer;
+        final boolean intern;
+
+        Slot(@NotNull Field field, @NotNull FieldAccessor accessor, @NotNull Map<Class<?>, UserSerializer> registry) {
+            this.field = field;
+            this.accessor = accessor;
+            JsonName jsonName = field.getAnnotation(JsonName.class);
+            this.name = jsonName == null ? field.getName() : jsonName.value();
+            this.rawType = field.getType();
+            this.type = field.getGenericType();
+            Annotation annotation = null;
+            UserSerializer serializer = null;
+            for (Annotation tmp : field.getDeclaredAnnotations()) {
+                serializer = registry.get(initialized(tmp.annotationType()));
+                if (serializer != null) {
+                    annotation = tmp;
+                    break;
+                }
+            }
+            this.annotation = annotation;
+            this.serializer = serializer;
+            this.intern = field.isAnnotationPresent(JesIntern.class);
+        }
+
+        @NotNull
+        private static Class<?> initialized(@NotNull Class<?> annotationType) {
+            // Serializers register themselves from the annotation's static initializer
+            try {
+                Class.forName(annotationType.getName(), true, annotationType.getClassLoader());
+            } catch (ClassNotFoundException ignored) {
+            }
+            return annotationType;
+        }
+
+        @Override
+        public String toString() {
+            return field.getDeclaringClass().getSimpleName() + "." + field.getName() + " => " + name;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+@SuppressWarnings("rawtypes")
+final class CodecRegistry {
+    private static final Map<Class<?>, JesCodec> codecs = load();
+
+    private CodecRegistry() {
+    }
+
+    @NotNull
+    private static Map<Class<?>, JesCodec> load() {
+        HashMap<Class<?>, JesCodec> result = new HashMap<>();
+        Iterator<JesCodec> services = ServiceLoader.load(JesCodec.class).iterator();
+        while (services.hasNext())
+            try {
+                JesCodec codec = services.next();
+                result.put(codec.type(), codec);
+            } catch (ServiceConfigurationError ignored) {
+                // A listed codec that no longer exists: its class falls back to reflection
+            }
+        return result.isEmpty() ? Collections.emptyMap() : result;
+    }
+
+    @Nullable
+    static JesCodec get(@NotNull Class<?> type) {
+        return codecs.get(type);
+    }
+}
@@ -6,14 +6,19 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import sliep.jes.reflection.JesUtilsKt;
-import sliep.jes.serializer.annotations.JsonName;
 
-import java.lang.annotation.Annotation;
+import java.io.*;
 import java.lang.reflect.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static sliep.jes.serializer.Serializer.MODIFIER_ENUM;
-import static sliep.jes.serializer.Serializer.MODIFIER_STATIC_TRANSIENT;
 
 @SuppressWarnings({"unchecked", "rawtypes"})
 public final class Deserializer {
@@ -22,6 +27,10 @@ public final class Deserializer {
     public static Object objectValue(@NotNull Object jes, @NotNull Type type) {
         if (jes instanceof JSONArray) return objectValueArray((JSONArray) jes, type, null);
         if (jes instanceof JSONObject) return objectValueObject((JSONObject) jes, type, null);
+        if (type == String.class && jes instanceof String) {
+            StringCache cache = StringCache.getGlobal();
+            return cache != null ? cache.canonicalize((String) jes) : jes;
+        }
         if (type instanceof Class) return objectValueType(jes, (Class<?>) type);
         if (jes instanceof String) return objectValueString((String) jes, type);
         return jes;
@@ -29,76 +38,65 @@ public final class Deserializer {
 
     @NotNull
     public static Object objectValueArray(@NotNull JSONArray jes, @NotNull Type arrayType, @Nullable Object target) {
+        return objectValueArray(jes, arrayType, target, null);
+    }
+
+    @NotNull
+    public static Object objectValueArray(@NotNull JSONArray jes, @NotNull Type arrayType, @Nullable Object target, @Nullable ParallelOptions options) {
         if (arrayType instanceof Class<?>) {
             if (JSONArray.class == arrayType) return jes;
             Class<?> componentType = ((Class<?>) arrayType).getComponentType();
             if (componentType == null)
                 throw new IllegalStateException("Expected array type, found " + arrayType.getTypeName());
-            if (componentType.isPrimitive()) {
-                Object result = target != null ? target : Array.newInstance(componentType, jes.length());
-                for (int i = 0; i < Array.getLength(result); i++)
-                    Array.set(result, i, objectValuePrimitive(jes.get(i), componentType));
-                return result;
-            } else {
+            if (componentType.isPrimitive()) return objectValuePrimitiveArray(jes, componentType, target);
+            else {
                 Object[] result = (Object[]) (target != null ? target : Array.newInstance(componentType, jes.length()));
-                for (int i = 0; i < result.length; i++)
-                    result[i] = objectValue(jes.get(i), componentType);
+                objectValueElements(jes, componentType, result, options);
                 return result;
             }
         }
         if (arrayType instanceof GenericArrayType) {
             Type componentType = ((GenericArrayType) arrayType).getGenericComponentType();
             Object[] result = (Object[]) (target != null ? target : Array.newInstance((Class<?>) (componentType instanceof Class<?> ? componentType : ((ParameterizedType) componentType).getRawType()), jes.length()));
-            for (int i = 0; i < result.length; i++)
-                result[i] = objectValue(jes.get(i), componentType);
+            objectValueElements(jes, componentType, result, options);
             return result;
         }
         if (arrayType instanceof ParameterizedType) {
             Class<?> type = (Class<?>) ((ParameterizedType) arrayType).getRawType();
             Type componentType = ((ParameterizedType) arrayType).getActualTypeArguments()[0];
-            Collection<Object> result;
-            if (target != null) result = (Collection<Object>) target;
-            else if (List.class.isAssignableFrom(type))
-                if (ArrayList.class == type || List.class == type) result = new ArrayList<>(jes.length());
-                else if (LinkedList.class == type) result = new LinkedList<>();
-                else if (Vector.class == type) result = new Vector<>(jes.length());
-                else if (Stack.class == type) result = new Stack<>();
-                else throw new IllegalStateException(
-                            "Supported List types: [ArrayList, LinkedList, Vector, Stack], found " + arrayType.getTypeName());
-            else if (Set.class.isAssignableFrom(type))
-                if (HashSet.class == type || Set.class == type) result = new HashSet<>(jes.length());
-                else if (LinkedHashSet.class == type) result = new LinkedHashSet<>(jes.length());
-                else if (TreeSet.class == type) result = new TreeSet<>();
-                else throw new IllegalStateException(
-                            "Supported Set types: [HashSet, LinkedHashSet, TreeSet], found " + arrayType.getTypeName());
-            else throw new IllegalStateException("Expected list or set type, found " + arrayType.getTypeName());
-            for (int i = 0; i < jes.length(); i++) result.add(objectValue(jes.get(i), componentType));
+            Collection<Object> result = target != null ? (Collection<Object>) target : newCollection(type, arrayType, jes.length());
+            if (options == null) for (int i = 0; i < jes.length(); i++) result.add(objectValue(jes.get(i), componentType));
+            else {
+                Object[] elements = new Object[jes.length()];
+                objectValueElements(jes, componentType, elements, options);
+                Collections.addAll(result, elements);
+            }
             return result;
         }
         throw new IllegalStateException("Expected array or collection type, found " + arrayType.getTypeName());
     }
 
+    private static void objectValueElements(@NotNull JSONArray jes, @NotNull Type componentType, @NotNull Object[] result, @Nullable ParallelOptions options) {
+        if (options == null) for (int i = 0; i < result.length; i++) result[i] = objectValue(jes.get(i), componentType);
+        else options.forEach(result.length, i -> result[i] = objectValue(jes.get(i), componentType));
+    }
+
     @NotNull
     public static Object objectValueObject(@NotNull JSONObject jes, @NotNull Type genericType, @Nullable Object target) {
         if (genericType instanceof Class<?>) {
             if (JSONObject.class == genericType) return jes;
             Class<?> type = (Class<?>) genericType;
+            JesCodec codec = target == null ? CodecRegistry.get(type) : null;
+            if (codec != null) return codec.fromJson(jes);
             Object result = target != null ? target : JesUtilsKt.accessor.allocateInstance(type);
+            ClassBinding binding = ClassBinding.of(type);
             for (String key : jes.keySet()) {
                 if (jes.isNull(key)) continue;
-                Field field = null;
-                for (Field tmp : JesUtilsKt.accessor.fields(type))
-                    if ((tmp.getModifiers() & MODIFIER_STATIC_TRANSIENT) == 0) {
-                        JsonName name = tmp.getAnnotation(JsonName.class);
-                        if (key.equals(name == null ? tmp.getName() : name.value())) {
-                            field = tmp;
-                            break;
-                        }
-                    }
-                if (field != null) try {
-                    field.set(result, valueFor(field, jes.get(key)));
+                ClassBinding.Slot slot = binding.get(key);
+                if (slot != null) try {
+                    slot.accessor.set(result, valueFor(slot, jes.get(key)));
                 } catch (Throwable e) {
-                    throw new JSONException("Failed to deserialize field " + field.getDeclaringClass().getSimpleName() + "." + key + " of type " + field.getType().getName(), e);
+                    throw new JSONException("Failed to deserialize field " + slot.field.getDeclaringClass().getSimpleName() + "." + key + " of type " + slot.field.getType().getName(), e);
                 }
             }
             return result;
@@ -106,20 +104,317 @@ public final class Deserializer {
         if (genericType instanceof ParameterizedType) {
             Class<?> type = (Class<?>) ((ParameterizedType) genericType).getRawType();
             Type componentType = ((ParameterizedType) genericType).getActualTypeArguments()[1];
-            Map<Object, Object> result;
-            if (target != null) result = (Map<Object, Object>) target;
-            else if (HashMap.class == type || Map.class == type) result = new HashMap<>(jes.length());
-            else if (LinkedHashMap.class == type) result = new LinkedHashMap<>(jes.length());
-            else if (TreeMap.class == type) result = new TreeMap<>();
-            else throw new IllegalStateException(
-                        "Supported Set types: [HashMap, LinkedHashMap, TreeMap], found " + genericType.getTypeName());
+            Map<Object, Object> result = target != null ? (Map<Object, Object>) target : newMap(type, genericType, jes.length());
+            StringCache cache = StringCache.getGlobal();
             for (String key : jes.keySet())
-                result.put(key, objectValue(jes.get(key), componentType));
+                result.put(cache != null ? cache.canonicalizeKey(key) : key, objectValue(jes.get(key), componentType));
+            return result;
+        }
+        throw new IllegalStateException("Expected object or map type, found " + genericType.getTypeName());
+    }
+
+    @NotNull
+    static Collection<Object> newCollection(@NotNull Class<?> type, @NotNull Type arrayType, int size) {
+        if (List.class.isAssignableFrom(type))
+            if (ArrayList.class == type || List.class == type) return new ArrayList<>(size);
+            else if (LinkedList.class == type) return new LinkedList<>();
+            else if (Vector.class == type) return new Vector<>(size);
+            else if (Stack.class == type) return new Stack<>();
+            else throw new IllegalStateException(
+                        "Supported List types: [ArrayList, LinkedList, Vector, Stack], found " + arrayType.getTypeName());
+        else if (Set.class.isAssignableFrom(type))
+            if (HashSet.class == type || Set.class == type) return new HashSet<>(size);
+            else if (LinkedHashSet.class == type) return new LinkedHashSet<>(size);
+            else if (TreeSet.class == type) return new TreeSet<>();
+            else throw new IllegalStateException(
+                        "Supported Set types: [HashSet, LinkedHashSet, TreeSet], found " + arrayType.getTypeName());
+        else throw new IllegalStateException("Expected list or set type, found " + arrayType.getTypeName());
+    }
+
+    @NotNull
+    static Map<Object, Object> newMap(@NotNull Class<?> type, @NotNull Type genericType, int size) {
+        if (HashMap.class == type || Map.class == type) return new HashMap<>(size);
+        else if (LinkedHashMap.class == type) return new LinkedHashMap<>(size);
+        else if (TreeMap.class == type) return new TreeMap<>();
+        else throw new IllegalStateException(
+                    "Supported Set types: [HashMap, LinkedHashMap, TreeMap], found " + genericType.getTypeName());
+    }
+
+    @Nullable
+    public static Object read(@NotNull Reader in, @NotNull Type type) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        try {
+            Object result = readValue(reader, type);
+            reader.endOfDocument();
+            return result;
+        } finally {
+            reader.release();
+        }
+    }
+
+    @Nullable
+    public static Object read(@NotNull InputStream in, @NotNull Type type) throws IOException {
+        return read(new InputStreamReader(in, StandardCharsets.UTF_8), type);
+    }
+
+    @Nullable
+    public static Object read(@NotNull byte[] in, @NotNull Type type) throws IOException {
+        return read(new ByteBufferReader(ByteBuffer.wrap(in)), type);
+    }
+
+    @Nullable
+    public static Object read(@NotNull ByteBuffer in, @NotNull Type type) throws IOException {
+        return read(new ByteBufferReader(in), type);
+    }
+
+    @Nullable
+    public static Object read(@NotNull Path path, @NotNull Type type) throws IOException {
+        // The reader maps its first window on construction: the channel must be closed even if that fails
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(new ByteBufferReader(channel), type);
+        }
+    }
+
+    @NotNull
+    public static <T> Iterator<T> iterator(@NotNull Reader in, @NotNull Type elementType) {
+        return new ElementIterator<>(new JsonReader(in), elementType);
+    }
+
+    @NotNull
+    public static <T> Iterator<T> iterator(@NotNull InputStream in, @NotNull Type elementType) {
+        return iterator(new InputStreamReader(in, StandardCharsets.UTF_8), elementType);
+    }
+
+    @NotNull
+    public static <T> Stream<T> stream(@NotNull Reader in, @NotNull Type elementType) {
+        ElementIterator<T> iterator = new ElementIterator<>(new JsonReader(in), elementType);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false).onClose(() -> {
+            try {
+                iterator.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @NotNull
+    public static <T> Stream<T> stream(@NotNull InputStream in, @NotNull Type elementType) {
+        return stream(new InputStreamReader(in, StandardCharsets.UTF_8), elementType);
+    }
+
+    @Nullable
+    static Object readValue(@NotNull JsonReader in, @NotNull Type type) throws IOException {
+        int next = in.peek();
+        if (next == '[') return readArray(in, type, null);
+        if (next == '{') return readObject(in, type, null);
+        if (in.nextNull()) return null;
+        Object jes = in.nextValue();
+        if (type instanceof Class) return objectValueType(jes, (Class<?>) type);
+        if (jes instanceof String) return objectValueString((String) jes, type);
+        return jes;
+    }
+
+    @NotNull
+    private static Object readArray(@NotNull JsonReader in, @NotNull Type arrayType, @Nullable Object target) throws IOException {
+        if (arrayType instanceof Class<?>) {
+            if (JSONArray.class == arrayType) return in.nextValue();
+            Class<?> componentType = ((Class<?>) arrayType).getComponentType();
+            if (componentType == null)
+                throw new IllegalStateException("Expected array type, found " + arrayType.getTypeName());
+            return readArray(in, componentType, componentType, target);
+        }
+        if (arrayType instanceof GenericArrayType) {
+            Type componentType = ((GenericArrayType) arrayType).getGenericComponentType();
+            return readArray(in, (Class<?>) (componentType instanceof Class<?> ? componentType : ((ParameterizedType) componentType).getRawType()), componentType, target);
+        }
+        if (arrayType instanceof ParameterizedType) {
+            Class<?> type = (Class<?>) ((ParameterizedType) arrayType).getRawType();
+            Type componentType = ((ParameterizedType) arrayType).getActualTypeArguments()[0];
+            Collection<Object> result = target != null ? (Collection<Object>) target : newCollection(type, arrayType, 10);
+            in.expect('[');
+            if (!in.consume(']')) do result.add(readValue(in, componentType));
+            while (in.separator(']'));
+            return result;
+        }
+        throw new IllegalStateException("Expected array or collection type, found " + arrayType.getTypeName());
+    }
+
+    @NotNull
+    private static Object readArray(@NotNull JsonReader in, @NotNull Class<?> componentClass, @NotNull Type componentType, @Nullable Object target) throws IOException {
+        if (componentClass.isPrimitive()) return readPrimitiveArray(in, componentClass, target);
+        ArrayList<Object> elements = new ArrayList<>();
+        in.expect('[');
+        if (!in.consume(']')) do elements.add(readValue(in, componentType));
+        while (in.separator(']'));
+        int length = target != null ? Math.min(Array.getLength(target), elements.size()) : elements.size();
+        Object result = target != null ? target : Array.newInstance(componentClass, length);
+        System.arraycopy(elements.toArray(), 0, result, 0, length);
+        return result;
+    }
+
+    @NotNull
+    private static Object readPrimitiveArray(@NotNull JsonReader in, @NotNull Class<?> componentType, @Nullable Object target) throws IOException {
+        int capacity = target != null ? Array.getLength(target) : 16;
+        int length = 0;
+        in.expect('[');
+        if (componentType == int.class) {
+            int[] result = target != null ? (int[]) target : new int[capacity];
+            if (!in.consume(']')) do {
+                int value = (int) in.nextLong();
+                if (length == result.length) if (target != null) continue;
+                else result = Arrays.copyOf(result, length << 1);
+                result[length++] = value;
+            } while (in.separator(']'));
+            return target != null || length == result.length ? result : Arrays.copyOf(result, length);
+        }
+        if (componentType == long.class) {
+            long[] result = target != null ? (long[]) target : new long[capacity];
+            if (!in.consume(']')) do {
+                long value = in.nextLong();
+                if (length == result.length) if (target != null) continue;
+                else result = Arrays.copyOf(result, length << 1);
+                result[length++] = value;
+            } while (in.separator(']'));
+            return target != null || length == result.length ? result : Arrays.copyOf(result, length);
+        }
+        if (componentType == double.class) {
+            double[] result = target != null ? (double[]) target : new double[capacity];
+            if (!in.consume(']')) do {
+                double value = in.nextDouble();
+                if (length == result.length) if (target != null) continue;
+                else result = Arrays.copyOf(result, length << 1);
+                result[length++] = value;
+            } while (in.separator(']'));
+            return target != null || length == result.length ? result : Arrays.copyOf(result, length);
+        }
+        if (componentType == float.class) {
+            float[] result = target != null ? (float[]) target : new float[capacity];
+            if (!in.consume(']')) do {
+                float value = in.nextFloat();
+                if (length == result.length) if (target != null) continue;
+                else result = Arrays.copyOf(result, length << 1);
+                result[length++] = value;
+            } while (in.separator(']'));
+            return target != null || length == result.length ? result : Arrays.copyOf(result, length);
+        }
+        if (componentType == short.class) {
+            short[] result = target != null ? (short[]) target : new short[capacity];
+            if (!in.consume(']')) do {
+                short value = (short) in.nextLong();
+                if (length == result.length) if (target != null) continue;
+                else result = Arrays.copyOf(result, length << 1);
+                result[length++] = value;
+            } while (in.separator(']'));
+            return target != null || length == result.length ? result : Arrays.copyOf(result, length);
+        }
+        if (componentType == byte.class) {
+            byte[] result = target != null ? (byte[]) target : new byte[capacity];
+            if (!in.consume(']')) do {
+                byte value = (byte) in.nextLong();
+                if (length == result.length) if (target != null) continue;
+                else result = Arrays.copyOf(result, length << 1);
+                result[length++] = value;
+            } while (in.separator(']'));
+            return target != null || length == result.length ? result : Arrays.copyOf(result, length);
+        }
+        if (componentType == char.class) {
+            char[] result = target != null ? (char[]) target : new char[capacity];
+            if (!in.consume(']')) do {
+                char value = in.nextChar();
+                if (length == result.length) if (target != null) continue;
+                else result = Arrays.copyOf(result, length << 1);
+                result[length++] = value;
+            } while (in.separator(']'));
+            return target != null || length == result.length ? result : Arrays.copyOf(result, length);
+        }
+        if (componentType == boolean.class) {
+            boolean[] result = target != null ? (boolean[]) target : new boolean[capacity];
+            if (!in.consume(']')) do {
+                boolean value = in.nextBoolean();
+                if (length == result.length) if (target != null) continue;
+                else result = Arrays.copyOf(result, length << 1);
+                result[length++] = value;
+            } while (in.separator(']'));
+            return target != null || length == result.length ? result : Arrays.copyOf(result, length);
+        }
+        throw new UnsupportedOperationException("Invalid primitive type " + componentType);
+    }
+
+    @NotNull
+    private static Object readObject(@NotNull JsonReader in, @NotNull Type genericType, @Nullable Object target) throws IOException {
+        if (genericType instanceof Class<?>) {
+            if (JSONObject.class == genericType) return in.nextValue();
+            Class<?> type = (Class<?>) genericType;
+            JesCodec codec = target == null ? CodecRegistry.get(type) : null;
+            if (codec != null) return codec.read(in);
+            Object result = target != null ? target : JesUtilsKt.accessor.allocateInstance(type);
+            ClassBinding binding = ClassBinding.of(type);
+            in.expect('{');
+            if (!in.consume('}')) do {
+                ClassBinding.Slot slot = in.nextSlot(binding);
+                if (in.nextNull()) continue;
+                if (slot == null) in.skipValue();
+                else try {
+                    readField(in, slot, result);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new JSONException("Failed to deserialize field " + slot.field.getDeclaringClass().getSimpleName() + "." + slot.name + " of type " + slot.field.getType().getName(), e);
+                }
+            } while (in.separator('}'));
+            return result;
+        }
+        if (genericType instanceof ParameterizedType) {
+            Class<?> type = (Class<?>) ((ParameterizedType) genericType).getRawType();
+            Type componentType = ((ParameterizedType) genericType).getActualTypeArguments()[1];
+            Map<Object, Object> result = target != null ? (Map<Object, Object>) target : newMap(type, genericType, 16);
+            in.expect('{');
+            if (!in.consume('}')) do {
+                String key = in.nextName();
+                result.put(key, readValue(in, componentType));
+            } while (in.separator('}'));
             return result;
         }
         throw new IllegalStateException("Expected object or map type, found " + genericType.getTypeName());
     }
 
+    private static void readField(@NotNull JsonReader in, @NotNull ClassBinding.Slot slot, @NotNull Object target) throws IOException, IllegalAccessException {
+        if (slot.serializer != null) {
+            slot.accessor.set(target, slot.serializer.fromJson(slot.annotation, in.nextValue(), slot.type));
+            return;
+        }
+        if (slot.intern) {
+            StringCache values = in.values;
+            in.values = StringCache.fields();
+            try {
+                slot.accessor.set(target, readValue(in, slot.type));
+            } finally {
+                in.values = values;
+            }
+            return;
+        }
+        Class<?> type = slot.rawType;
+        if (type.isPrimitive() && in.peek() != '"') {
+            if (type == int.class) {
+                slot.accessor.setInt(target, (int) in.nextLong());
+                return;
+            }
+            if (type == long.class) {
+                slot.accessor.setLong(target, in.nextLong());
+                return;
+            }
+            if (type == double.class) {
+                slot.accessor.setDouble(target, in.nextDouble());
+                return;
+            }
+            if (type == boolean.class) {
+                slot.accessor.setBoolean(target, in.nextBoolean());
+                return;
+            }
+        }
+        slot.accessor.set(target, readValue(in, slot.type));
+    }
+
     @NotNull
     public static Object objectValueType(@NotNull Object jes, @NotNull Class<?> type) {
         if (jes instanceof String) {
@@ -127,8 +422,8 @@ public final class Deserializer {
             if (type.isPrimitive()) {
                 if (type == int.class) return Integer.parseInt((String) jes);
                 if (type == boolean.class) return Boolean.parseBoolean((String) jes);
-                if (type == float.class) return Float.parseFloat((String) jes);
-                if (type == double.class) return Double.parseDouble((String) jes);
+                if (type == float.class) return NumberCodec.parseFloat((String) jes);
+                if (type == double.class) return NumberCodec.parseDouble((String) jes);
                 if (type == long.class) return Long.parseLong((String) jes);
                 if (type == char.class) return ((String) jes).charAt(0);
                 if (type == short.class) return Short.parseShort((String) jes);
@@ -137,8 +432,8 @@ public final class Deserializer {
             if ((type.getModifiers() & MODIFIER_ENUM) != 0) return objectValueEnum(jes, type);
             if (type == Integer.class) return Integer.parseInt((String) jes);
             if (type == Boolean.class) return Boolean.parseBoolean((String) jes);
-            if (type == Float.class) return Float.parseFloat((String) jes);
-            if (type == Double.class) return Double.parseDouble((String) jes);
+            if (type == Float.class) return NumberCodec.parseFloat((String) jes);
+            if (type == Double.class) return NumberCodec.parseDouble((String) jes);
             if (type == Long.class) return Long.parseLong((String) jes);
             if (type == Character.class) return ((String) jes).charAt(0);
             if (type == Short.class) return Short.parseShort((String) jes);
@@ -172,15 +467,31 @@ public final class Deserializer {
 
     @NotNull
     public static Object objectValueString(@NotNull String jes, @NotNull Type type) {
-        try {
-            return objectValueObject(new JSONObject(jes), type, null);
-        } catch (JSONException ignored) {
+        int first = firstToken(jes);
+        if (first == '{' || first == '[') try {
+            return first == '{' ? objectValueObject(new JSONObject(jes), type, null) : objectValueArray(new JSONArray(jes), type, null);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Failed to deserialize object from String: " + jes, e);
         }
-        try {
-            return objectValueArray(new JSONArray(jes), type, null);
+        throw new IllegalArgumentException("Failed to deserialize object from String: " + jes);
+    }
+
+    @Nullable
+    static Object parseJson(@NotNull String jes) {
+        int first = firstToken(jes);
+        if (first == '{' || first == '[') try {
+            return first == '{' ? new JSONObject(jes) : new JSONArray(jes);
         } catch (JSONException ignored) {
         }
-        throw new IllegalArgumentException("Failed to deserialize object from String: " + jes);
+        return null;
+    }
+
+    private static int firstToken(@NotNull String jes) {
+        for (int i = 0; i < jes.length(); i++) {
+            char c = jes.charAt(i);
+            if (c > ' ') return c;
+        }
+        return -1;
     }
 
     @NotNull
@@ -188,7 +499,7 @@ public final class Deserializer {
         if (type == int.class)
             return jes instanceof Integer ? jes : ((Number) jes).intValue();
         if (type == boolean.class)
-            return jes instanceof Number ? ((Number) jes).intValue() != 0 : jes == Boolean.TRUE;
+            return booleanValue(jes);
         if (type == float.class)
             return jes instanceof Float ? jes : ((Number) jes).floatValue();
         if (type == double.class)
@@ -196,7 +507,7 @@ public final class Deserializer {
         if (type == long.class)
             return jes instanceof Long ? jes : ((Number) jes).longValue();
         if (type == char.class)
-            return jes instanceof Character ? jes : (char) ((Number) jes).intValue();
+            return jes instanceof Character ? jes : charValue(jes);
         if (type == short.class)
             return ((Number) jes).shortValue();
         if (type == byte.class)
@@ -204,27 +515,102 @@ public final class Deserializer {
         throw new UnsupportedOperationException("Invalid primitive type " + type);
     }
 
+    @NotNull
+    private static Object objectValuePrimitiveArray(@NotNull JSONArray jes, @NotNull Class<?> componentType, @Nullable Object target) {
+        int length = jes.length();
+        if (componentType == int.class) {
+            int[] result = target != null ? (int[]) target : new int[length];
+            for (int i = 0; i < result.length; i++) result[i] = ((Number) jes.get(i)).intValue();
+            return result;
+        }
+        if (componentType == long.class) {
+            long[] result = target != null ? (long[]) target : new long[length];
+            for (int i = 0; i < result.length; i++) result[i] = ((Number) jes.get(i)).longValue();
+            return result;
+        }
+        if (componentType == double.class) {
+            double[] result = target != null ? (double[]) target : new double[length];
+            for (int i = 0; i < result.length; i++) result[i] = ((Number) jes.get(i)).doubleValue();
+            return result;
+        }
+        if (componentType == float.class) {
+            float[] result = target != null ? (float[]) target : new float[length];
+            for (int i = 0; i < result.length; i++) result[i] = ((Number) jes.get(i)).floatValue();
+            return result;
+        }
+        if (componentType == short.class) {
+            short[] result = target != null ? (short[]) target : new short[length];
+            for (int i = 0; i < result.length; i++) result[i] = ((Number) jes.get(i)).shortValue();
+            return result;
+        }
+        if (componentType == byte.class) {
+            byte[] result = target != null ? (byte[]) target : new byte[length];
+            for (int i = 0; i < result.length; i++) result[i] = ((Number) jes.get(i)).byteValue();
+            return result;
+        }
+        if (componentType == char.class) {
+            char[] result = target != null ? (char[]) target : new char[length];
+            for (int i = 0; i < result.length; i++) result[i] = charValue(jes.get(i));
+            return result;
+        }
+        if (componentType == boolean.class) {
+            boolean[] result = target != null ? (boolean[]) target : new boolean[length];
+            for (int i = 0; i < result.length; i++) result[i] = booleanValue(jes.get(i));
+            return result;
+        }
+        throw new UnsupportedOperationException("Invalid primitive type " + componentType);
+    }
+
+    private static boolean booleanValue(@NotNull Object jes) {
+        return jes instanceof Number ? ((Number) jes).intValue() != 0 : jes == Boolean.TRUE;
+    }
+
+    // Serializer writes a char as a one-character string, which org.json parses back as a String
+    private static char charValue(@NotNull Object jes) {
+        if (jes instanceof Character) return (Character) jes;
+        if (!(jes instanceof String)) return (char) ((Number) jes).intValue();
+        String value = (String) jes;
+        if (value.length() != 1) throw new JSONException("Expected single character: \"" + value + "\"");
+        return value.charAt(0);
+    }
+
     @NotNull
     private static Object objectValueEnum(@NotNull Object jes, @NotNull Class<?> type) {
+        EnumTable table = EnumTable.of(type);
         if (ValueEnum.class.isAssignableFrom(type)) {
             int id = jes instanceof Integer ? (int) jes : Integer.parseInt((String) jes);
-            for (Object constant : type.getEnumConstants())
-                if (((ValueEnum) constant).getValue() == id) return constant;
+            Object constant = table.byValue(id);
+            if (constant != null) return constant;
             throw new IllegalArgumentException("No enum constant for value: " + id + " in " + type);
         } else {
-            for (Object constant : type.getEnumConstants())
-                if (((Enum<?>) constant).name().equals(jes)) return constant;
+            Object constant = jes instanceof String ? table.byName((String) jes) : null;
+            if (constant != null) return constant;
             throw new IllegalArgumentException("No enum constant for name: " + jes + " in " + type);
         }
     }
 
     @NotNull
-    private static Object valueFor(@NotNull Field field, @NotNull Object value) {
-        Type type = field.getGenericType();
-        for (Annotation annotation : field.getDeclaredAnnotations()) {
-            UserSerializer serializer = Serializer.serializers.get(annotation.annotationType());
-            if (serializer != null) return serializer.fromJson(annotation, value, type);
+    private static Object valueFor(@NotNull ClassBinding.Slot slot, @NotNull Object value) {
+        if (slot.serializer != null) return slot.serializer.fromJson(slot.annotation, value, slot.type);
+        if (slot.intern) value = canonicalize(value, StringCache.fields());
+        return objectValue(value, slot.type);
+    }
+
+    // Copies the tree with canonical strings, leaving the caller's JSON untouched
+    @NotNull
+    private static Object canonicalize(@NotNull Object jes, @NotNull StringCache cache) {
+        if (jes instanceof String) return cache.canonicalize((String) jes);
+        if (jes instanceof JSONArray) {
+            JSONArray result = new JSONArray();
+            for (Object element : (JSONArray) jes) result.put(canonicalize(element, cache));
+            return result;
+        }
+        if (jes instanceof JSONObject) {
+            JSONObject result = new JSONObject();
+            for (String key : ((JSONObject) jes).keySet())
+                result.put(cache.canonicalizeKey(key), canonicalize(((JSONObject) jes).get(key), cache));
+            return result;
         }
-        return objectValue(value, type);
+        return jes;
     }
 }
@@ -0,0 +1,67 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+@SuppressWarnings("unchecked")
+final class ElementIterator<T> implements Iterator<T>, Closeable {
+    private static final int START = 0;
+    private static final int CONSUMED = 1;
+    private static final int READY = 2;
+    private static final int DONE = 3;
+    @NotNull
+    private final JsonReader in;
+    @NotNull
+    private final Type type;
+    private int state = START;
+
+    ElementIterator(@NotNull JsonReader in, @NotNull Type type) {
+        this.in = in;
+        this.type = type;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (state == READY) return true;
+        if (state == DONE) return false;
+        try {
+            boolean more;
+            if (state == START) {
+                in.expect('[');
+                more = !in.consume(']');
+            } else more = in.separator(']');
+            if (more) {
+                state = READY;
+                return true;
+            }
+            in.endOfDocument();
+            close();
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        state = CONSUMED;
+        try {
+            return (T) Deserializer.readValue(in, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        state = DONE;
+        in.close();
+    }
+}
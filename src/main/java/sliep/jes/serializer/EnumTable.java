@@ -0,0 +1,97 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Constant lookup by name and by ValueEnum value, shared by the reflective binding and generated codecs
+public final class EnumTable {
+    private static final ConcurrentHashMap<Class<?>, EnumTable> tables = new ConcurrentHashMap<>();
+    @NotNull
+    private final HashMap<String, Object> names;
+    @Nullable
+    private final Object[] dense;
+    private final int min;
+    @Nullable
+    private final int[] keys;
+    @Nullable
+    private final Object[] values;
+
+    private EnumTable(@NotNull Class<?> type) {
+        Object[] constants = type.getEnumConstants();
+        names = new HashMap<>(constants.length * 4 / 3 + 1);
+        for (Object constant : constants) names.putIfAbsent(((Enum<?>) constant).name(), constant);
+        if (!ValueEnum.class.isAssignableFrom(type) || constants.length == 0) {
+            dense = null;
+            keys = null;
+            values = null;
+            min = 0;
+            return;
+        }
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (Object constant : constants) {
+            int value = ((ValueEnum) constant).getValue();
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        this.min = min;
+        if ((long) max - min < constants.length * 4L + 16) {
+            dense = new Object[max - min + 1];
+            for (Object constant : constants) {
+                int index = ((ValueEnum) constant).getValue() - min;
+                if (dense[index] == null) dense[index] = constant;
+            }
+            keys = null;
+            values = null;
+        } else {
+            // Open addressing with linear probing, the table is at most half full
+            int capacity = Integer.highestOneBit(constants.length * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new Object[capacity];
+            for (Object constant : constants) {
+                int value = ((ValueEnum) constant).getValue();
+                int index = hash(value) & (capacity - 1);
+                while (values[index] != null && keys[index] != value) index = (index + 1) & (capacity - 1);
+                if (values[index] == null) {
+                    keys[index] = value;
+                    values[index] = constant;
+                }
+            }
+            dense = null;
+        }
+    }
+
+    @NotNull
+    public static EnumTable of(@NotNull Class<?> type) {
+        EnumTable table = tables.get(type);
+        if (table != null) return table;
+        table = new EnumTable(type);
+        EnumTable previous = tables.putIfAbsent(type, table);
+        return previous != null ? previous : table;
+    }
+
+    @Nullable
+    public Object byName(@NotNull String name) {
+        return names.get(name);
+    }
+
+    @Nullable
+    public Object byValue(int value) {
+        if (dense != null) {
+            long index = (long) value - min;
+            return index >= 0 && index < dense.length ? dense[(int) index] : null;
+        }
+        if (values == null) return null;
+        int mask = values.length - 1;
+        for (int index = hash(value) & mask; values[index] != null; index = (index + 1) & mask)
+            if (keys[index] == value) return values[index];
+        return null;
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,101 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+
+abstract class FieldAccessor {
+    private static final boolean REFLECTION = Boolean.getBoolean("sliep.jes.serializer.reflection");
+
+    // Accessors of fields, in order: one class generated for all of them where the runtime can define it, else reflection
+    @NotNull
+    static FieldAccessor[] of(@NotNull Field[] fields) {
+        FieldAccessor[] accessors = REFLECTION ? null : GeneratedAccessor.generate(fields);
+        if (accessors != null) return accessors;
+        accessors = new FieldAccessor[fields.length];
+        for (int i = 0; i < fields.length; i++) accessors[i] = new ReflectionAccessor(fields[i]);
+        return accessors;
+    }
+
+    @Nullable
+    abstract Object get(@NotNull Object target) throws IllegalAccessException;
+
+    abstract void set(@NotNull Object target, @Nullable Object value) throws IllegalAccessException;
+
+    abstract int getInt(@NotNull Object target) throws IllegalAccessException;
+
+    abstract void setInt(@NotNull Object target, int value) throws IllegalAccessException;
+
+    abstract long getLong(@NotNull Object target) throws IllegalAccessException;
+
+    abstract void setLong(@NotNull Object target, long value) throws IllegalAccessException;
+
+    abstract double getDouble(@NotNull Object target) throws IllegalAccessException;
+
+    abstract void setDouble(@NotNull Object target, double value) throws IllegalAccessException;
+
+    abstract boolean getBoolean(@NotNull Object target) throws IllegalAccessException;
+
+    abstract void setBoolean(@NotNull Object target, boolean value) throws IllegalAccessException;
+
+    private static final class ReflectionAccessor extends FieldAccessor {
+        @NotNull
+        private final Field field;
+
+        ReflectionAccessor(@NotNull Field field) {
+            this.field = field;
+        }
+
+        @Nullable
+        @Override
+        Object get(@NotNull Object target) throws IllegalAccessException {
+            return field.get(target);
+        }
+
+        @Override
+        void set(@NotNull Object target, @Nullable Object value) throws IllegalAccessException {
+            field.set(target, value);
+        }
+
+        @Override
+        int getInt(@NotNull Object target) throws IllegalAccessException {
+            return field.getInt(target);
+        }
+
+        @Override
+        void setInt(@NotNull Object target, int value) throws IllegalAccessException {
+            field.setInt(target, value);
+        }
+
+        @Override
+        long getLong(@NotNull Object target) throws IllegalAccessException {
+            return field.getLong(target);
+        }
+
+        @Override
+        void setLong(@NotNull Object target, long value) throws IllegalAccessException {
+            field.setLong(target, value);
+        }
+
+        @Override
+        double getDouble(@NotNull Object target) throws IllegalAccessException {
+            return field.getDouble(target);
+        }
+
+        @Override
+        void setDouble(@NotNull Object target, double value) throws IllegalAccessException {
+            field.setDouble(target, value);
+        }
+
+        @Override
+        boolean getBoolean(@NotNull Object target) throws IllegalAccessException {
+            return field.getBoolean(target);
+        }
+
+        @Override
+        void setBoolean(@NotNull Object target, boolean value) throws IllegalAccessException {
+            field.setBoolean(target, value);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Base of the accessor class spun for each bound class. The spun class keeps the handles of every field in static
+// finals, which the JIT treats as constants and inlines down to the field access, and picks its field by index
+abstract class GeneratedAccessor extends FieldAccessor {
+    private static final String NAME = "sliep/jes/serializer/GeneratedAccessor";
+    private static final String OBJECT = "Ljava/lang/Object;";
+    private static final String HANDLE = "java/lang/invoke/MethodHandle";
+    // Keeps the constant pool, the switches and the sipush indexes of <clinit> well within their limits
+    private static final int MAX_FIELDS = 1024;
+    private static final AtomicInteger counter = new AtomicInteger();
+    // Handles of the class being defined, read back by its <clinit> on the defining thread
+    private static final ThreadLocal<MethodHandle[]> handoff = new ThreadLocal<>();
+    // (Lookup, byte[]) -> Class: Lookup.defineHiddenClass where available, so the class unloads with its binding, else
+    // Lookup.defineClass. Neither exists on Java 8, which keeps reflection
+    @Nullable
+    private static final MethodHandle define = define();
+    // Field types with their own FieldAccessor methods, as descriptor letters and load/return opcodes
+    private static final Class<?>[] TYPES = {int.class, long.class, double.class, boolean.class};
+    private static final String[] DESCRIPTORS = {"I", "J", "D", "Z"};
+    private static final int[] LOADS = {0x1c, 0x20, 0x28, 0x1c};
+    private static final int[] RETURNS = {0xac, 0xad, 0xaf, 0xac};
+    final int index;
+
+    GeneratedAccessor(int index) {
+        this.index = index;
+    }
+
+    // Accessors for fields, all backed by one spun class, or null when this runtime can't define it
+    @Nullable
+    static FieldAccessor[] generate(@NotNull Field[] fields) {
+        if (define == null || fields.length == 0 || fields.length > MAX_FIELDS) return null;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        ArrayList<MethodHandle> handles = new ArrayList<>();
+        int[] types = new int[fields.length];
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                Class<?> type = fields[i].getType();
+                MethodHandle getter = lookup.unreflectGetter(fields[i]);
+                MethodHandle setter = lookup.unreflectSetter(fields[i]);
+                handles.add(getter.asType(MethodType.methodType(Object.class, Object.class)));
+                handles.add(setter.asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                types[i] = -1;
+                for (int t = 0; t < TYPES.length; t++) if (TYPES[t] == type) types[i] = t;
+                if (types[i] < 0) continue;
+                handles.add(getter.asType(MethodType.methodType(type, Object.class)));
+                handles.add(setter.asType(MethodType.methodType(void.class, Object.class, type)));
+            }
+            byte[] bytes = classFile(NAME + "$" + counter.incrementAndGet(), types, handles.size());
+            handoff.set(handles.toArray(new MethodHandle[0]));
+            try {
+                Class<?> generated = (Class<?>) define.invokeExact(lookup, bytes);
+                Constructor<?> constructor = generated.getDeclaredConstructor(int.class);
+                FieldAccessor[] accessors = new FieldAccessor[fields.length];
+                for (int i = 0; i < accessors.length; i++) accessors[i] = (FieldAccessor) constructor.newInstance(i);
+                return accessors;
+            } finally {
+                handoff.remove();
+            }
+        } catch (Error e) {
+            if (e instanceof LinkageError) return null;
+            throw e;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    @NotNull
+    static MethodHandle[] handoff() {
+        return handoff.get();
+    }
+
+    @Nullable
+    private static MethodHandle define() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            Object options = Array.newInstance(option, 0);
+            MethodHandle hidden = lookup.findVirtual(MethodHandles.Lookup.class, "defineHiddenClass",
+                    MethodType.methodType(MethodHandles.Lookup.class, byte[].class, boolean.class, options.getClass()));
+            MethodHandle lookupClass = lookup.findVirtual(MethodHandles.Lookup.class, "lookupClass", MethodType.methodType(Class.class));
+            return MethodHandles.filterReturnValue(MethodHandles.insertArguments(hidden, 2, true, options), lookupClass);
+        } catch (ReflectiveOperationException ignored) {
+        }
+        try {
+            return lookup.findVirtual(MethodHandles.Lookup.class, "defineClass", MethodType.methodType(Class.class, byte[].class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // Reached only from a typed method of a field of another type, or from an index out of range
+    @Nullable
+    @Override
+    Object get(@NotNull Object target) {
+        throw new IllegalStateException("No field at index " + index);
+    }
+
+    @Override
+    void set(@NotNull Object target, @Nullable Object value) {
+        throw new IllegalStateException("No field at index " + index);
+    }
+
+    @Override
+    int getInt(@NotNull Object target) {
+        return ((Number) get(target)).intValue();
+    }
+
+    @Override
+    void setInt(@NotNull Object target, int value) {
+        set(target, value);
+    }
+
+    @Override
+    long getLong(@NotNull Object target) {
+        return ((Number) get(target)).longValue();
+    }
+
+    @Override
+    void setLong(@NotNull Object target, long value) {
+        set(target, value);
+    }
+
+    @Override
+    double getDouble(@NotNull Object target) {
+        return ((Number) get(target)).doubleValue();
+    }
+
+    @Override
+    void setDouble(@NotNull Object target, double value) {
+        set(target, value);
+    }
+
+    @Override
+    boolean getBoolean(@NotNull Object target) {
+        return (Boolean) get(target);
+    }
+
+    @Override
+    void setBoolean(@NotNull Object target, boolean value) {
+        set(target, value);
+    }
+
+    // final class <name> extends GeneratedAccessor, with static final handles h0..hN in the order of handoff(): getter
+    // and setter of each field, then its typed getter and setter when types[i] >= 0
+    @NotNull
+    private static byte[] classFile(@NotNull String name, @NotNull int[] types, int handles) throws IOException {
+        ClassFile file = new ClassFile();
+        int[] first = new int[types.length];
+        for (int i = 0, h = 0; i < types.length; h += types[i] < 0 ? 2 : 4, i++) first[i] = h;
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(members);
+        out.writeShort(handles);
+        for (int h = 0; h < handles; h++) {
+            out.writeShort(0x001a);
+            out.writeShort(file.utf8("h" + h));
+            out.writeShort(file.utf8("L" + HANDLE + ";"));
+            out.writeShort(0);
+        }
+        ArrayList<byte[]> methods = new ArrayList<>();
+        methods.add(file.method(0x0001, "<init>", "(I)V", 2, 2, new int[0], code -> {
+            code.write(0x2a);
+            code.write(0x1b);
+            code.write(0xb7);
+            code.writeShort(file.member(10, NAME, "<init>", "(I)V"));
+            code.write(0xb1);
+        }));
+        methods.add(file.method(0x0008, "<clinit>", "()V", 2, 1, new int[0], code -> {
+            code.write(0xb8);
+            code.writeShort(file.member(10, NAME, "handoff", "()[L" + HANDLE + ";"));
+            code.write(0x4b);
+            for (int h = 0; h < handles; h++) {
+                code.write(0x2a);
+                code.write(0x11);
+                code.writeShort(h);
+                code.write(0x32);
+                code.write(0xb3);
+                code.writeShort(file.member(9, name, "h" + h, "L" + HANDLE + ";"));
+            }
+            code.write(0xb1);
+        }));
+        methods.add(file.accessor("get", "(" + OBJECT + ")" + OBJECT, 0, 0xb0, 0, types, -2, first, name));
+        methods.add(file.accessor("set", "(" + OBJECT + OBJECT + ")V", 0x2c, 0xb1, 1, types, -2, first, name));
+        for (int t = 0; t < TYPES.length; t++) {
+            String type = Character.toUpperCase(TYPES[t].getName().charAt(0)) + TYPES[t].getName().substring(1);
+            byte[] getter = file.accessor("get" + type, "(" + OBJECT + ")" + DESCRIPTORS[t], 0, RETURNS[t], 2, types, t, first, name);
+            byte[] setter = file.accessor("set" + type, "(" + OBJECT + DESCRIPTORS[t] + ")V", LOADS[t], 0xb1, 3, types, t, first, name);
+            if (getter != null) methods.add(getter);
+            if (setter != null) methods.add(setter);
+        }
+        out.writeShort(methods.size());
+        for (byte[] method : methods) out.write(method);
+        out.writeShort(0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        int thisClass = file.type(name), superClass = file.type(NAME);
+        header.writeInt(0xcafebabe);
+        header.writeShort(0);
+        header.writeShort(52);
+        header.writeShort(file.count);
+        header.write(file.pool.toByteArray());
+        header.writeShort(0x0030);
+        header.writeShort(thisClass);
+        header.writeShort(superClass);
+        header.writeShort(0);
+        header.write(members.toByteArray());
+        return bytes.toByteArray();
+    }
+
+    private interface Code {
+        void write(@NotNull DataOutputStream code) throws IOException;
+    }
+
+    private static final class ClassFile {
+        @NotNull
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        @NotNull
+        private final DataOutputStream out = new DataOutputStream(pool);
+        @NotNull
+        private final HashMap<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(@NotNull String value) throws IOException {
+            Integer entry = entries.get("U" + value);
+            if (entry != null) return entry;
+            out.write(1);
+            out.writeUTF(value);
+            entries.put("U" + value, count);
+            return count++;
+        }
+
+        int type(@NotNull String name) throws IOException {
+            Integer entry = entries.get("C" + name);
+            if (entry != null) return entry;
+            int utf8 = utf8(name);
+            out.write(7);
+            out.writeShort(utf8);
+            entries.put("C" + name, count);
+            return count++;
+        }
+
+        // Fieldref (tag 9) or Methodref (tag 10)
+        int member(int tag, @NotNull String owner, @NotNull String name, @NotNull String descriptor) throws IOException {
+            String key = tag + owner + "." + name + descriptor;
+            Integer entry = entries.get(key);
+            if (entry != null) return entry;
+            int type = type(owner), utf8Name = utf8(name), utf8Descriptor = utf8(descriptor);
+            Integer nameAndType = entries.get("N" + name + descriptor);
+            if (nameAndType == null) {
+                out.write(12);
+                out.writeShort(utf8Name);
+                out.writeShort(utf8Descriptor);
+                entries.put("N" + name + descriptor, nameAndType = count++);
+            }
+            out.write(tag);
+            out.writeShort(type);
+            out.writeShort(nameAndType);
+            entries.put(key, count);
+            return count++;
+        }
+
+        // Loads this.index and switches to the handle of that field, invoked with the method's own descriptor. Fields
+        // not of the method's type (type -2 matches all) go to the GeneratedAccessor implementation: null if all do
+        @Nullable
+        byte[] accessor(@NotNull String name, @NotNull String descriptor, int load, int ret, int handle, @NotNull int[] types,
+                        int type, @NotNull int[] first, @NotNull String owner) throws IOException {
+            int matches = 0;
+            for (int t : types) if (type == -2 || t == type) matches++;
+            if (matches == 0) return null;
+            int slots = load == 0x20 || load == 0x28 ? 2 : load == 0 ? 0 : 1;
+            int caseSize = 3 + 1 + (load == 0 ? 0 : 1) + 3 + 1;
+            int blocks = 20 + 4 * types.length;
+            int[] frames = new int[matches + 1];
+            int[] targets = new int[types.length];
+            for (int i = 0, f = 0; i < types.length; i++)
+                if (type == -2 || types[i] == type) {
+                    targets[i] = frames[f] = blocks + f * caseSize;
+                    f++;
+                }
+            int fallback = frames[matches] = blocks + matches * caseSize;
+            for (int i = 0; i < types.length; i++) if (targets[i] == 0) targets[i] = fallback;
+            int invokeExact = member(10, HANDLE, "invokeExact", descriptor);
+            int field = member(9, NAME, "index", "I");
+            int fallbackMethod = member(10, NAME, name, descriptor);
+            int[] fieldRefs = new int[types.length];
+            for (int i = 0; i < types.length; i++)
+                if (targets[i] != fallback) fieldRefs[i] = member(9, owner, "h" + (first[i] + handle), "L" + HANDLE + ";");
+            return method(0x0010, name, descriptor, 2 + slots, 2 + slots, frames, code -> {
+                code.write(0x2a);
+                code.write(0xb4);
+                code.writeShort(field);
+                code.write(0xaa);
+                code.write(new byte[3]);
+                code.writeInt(fallback - 4);
+                code.writeInt(0);
+                code.writeInt(types.length - 1);
+                for (int target : targets) code.writeInt(target - 4);
+                for (int i = 0; i < types.length; i++) {
+                    if (targets[i] == fallback) continue;
+                    code.write(0xb2);
+                    code.writeShort(fieldRefs[i]);
+                    code.write(0x2b);
+                    if (load != 0) code.write(load);
+                    code.write(0xb6);
+                    code.writeShort(invokeExact);
+                    code.write(ret);
+                }
+                code.write(0x2a);
+                code.write(0x2b);
+                if (load != 0) code.write(load);
+                code.write(0xb7);
+                code.writeShort(fallbackMethod);
+                code.write(ret);
+            });
+        }
+
+        // Every branch target has the locals of the method entry and an empty stack: one same_frame each
+        @NotNull
+        byte[] method(int access, @NotNull String name, @NotNull String descriptor, int stack, int locals, @NotNull int[] frames,
+                      @NotNull Code body) throws IOException {
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+            body.write(new DataOutputStream(code));
+            ByteArrayOutputStream map = new ByteArrayOutputStream();
+            DataOutputStream frame = new DataOutputStream(map);
+            for (int f = 0, previous = -1; f < frames.length; previous = frames[f++]) {
+                int delta = frames[f] - previous - 1;
+                if (delta < 64) frame.write(delta);
+                else {
+                    frame.write(251);
+                    frame.writeShort(delta);
+                }
+            }
+            int nameIndex = utf8(name), descriptorIndex = utf8(descriptor), codeIndex = utf8("Code");
+            int mapIndex = frames.length == 0 ? 0 : utf8("StackMapTable");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+            out.writeShort(codeIndex);
+            out.writeInt(12 + code.size() + (frames.length == 0 ? 0 : 8 + map.size()));
+            out.writeShort(stack);
+            out.writeShort(locals);
+            out.writeInt(code.size());
+            code.writeTo(out);
+            out.writeShort(0);
+            out.writeShort(frames.length == 0 ? 0 : 1);
+            if (frames.length != 0) {
+                out.writeShort(mapIndex);
+                out.writeInt(2 + map.size());
+                out.writeShort(frames.length);
+                map.writeTo(out);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
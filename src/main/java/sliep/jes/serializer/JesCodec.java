@@ -0,0 +1,40 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+public interface JesCodec<T> {
+    @NotNull
+    Class<T> type();
+
+    @NotNull
+    JSONObject toJson(@NotNull T value);
+
+    @NotNull
+    T fromJson(@NotNull JSONObject json);
+
+    // Streaming and binary hooks: generated codecs implement them directly, the defaults go through the tree methods
+    default void write(@NotNull T value, @NotNull JsonWriter out) throws IOException {
+        out.writeValue(toJson(value));
+    }
+
+    @NotNull
+    default T read(@NotNull JsonReader in) throws IOException {
+        Object json = in.nextValue();
+        if (!(json instanceof JSONObject)) throw in.syntaxError("Expected '{'");
+        return fromJson((JSONObject) json);
+    }
+
+    default void write(@NotNull T value, @NotNull BinaryWriter out) {
+        out.writeValue(toJson(value));
+    }
+
+    @NotNull
+    default T read(@NotNull BinaryReader in) {
+        Object json = in.nextValue();
+        if (!(json instanceof JSONObject)) throw in.syntaxError("Expected object");
+        return fromJson((JSONObject) json);
+    }
+}
@@ -0,0 +1,254 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONException;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@SuppressWarnings("unchecked")
+public final class JsonLines {
+    private JsonLines() {
+    }
+
+    @NotNull
+    public static <T> Iterator<T> iterator(@NotNull Reader in, @NotNull Type type) {
+        return new SequentialIterator<>(buffered(in), type);
+    }
+
+    @NotNull
+    public static <T> Iterator<T> iterator(@NotNull Reader in, @NotNull Type type, @NotNull ParallelOptions options) {
+        return new ParallelIterator<>(buffered(in), type, options);
+    }
+
+    @NotNull
+    private static BufferedReader buffered(@NotNull Reader in) {
+        return in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 65536);
+    }
+
+    @NotNull
+    public static <T> Stream<T> stream(@NotNull Reader in, @NotNull Type type) {
+        return stream(iterator(in, type), in);
+    }
+
+    @NotNull
+    public static <T> Stream<T> stream(@NotNull Reader in, @NotNull Type type, @NotNull ParallelOptions options) {
+        return stream(iterator(in, type, options), in);
+    }
+
+    @NotNull
+    public static <T> Stream<T> stream(@NotNull InputStream in, @NotNull Type type) {
+        return stream(new InputStreamReader(in, StandardCharsets.UTF_8), type);
+    }
+
+    @NotNull
+    public static <T> Stream<T> stream(@NotNull InputStream in, @NotNull Type type, @NotNull ParallelOptions options) {
+        return stream(new InputStreamReader(in, StandardCharsets.UTF_8), type, options);
+    }
+
+    @NotNull
+    private static <T> Stream<T> stream(@NotNull Iterator<T> iterator, @NotNull Closeable source) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false).onClose(() -> {
+            try {
+                source.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @NotNull
+    public static Writer writer(@NotNull OutputStream out) {
+        return new Writer(new JsonWriter.Utf8Writer(out), out);
+    }
+
+    @NotNull
+    public static Writer writer(@NotNull Appendable out) {
+        return new Writer(new JsonWriter.AppendableWriter(out), out);
+    }
+
+    public static void write(@NotNull Iterable<?> records, @NotNull OutputStream out) throws IOException {
+        Writer writer = writer(out);
+        try {
+            for (Object record : records) writer.write(record);
+            writer.flush();
+        } finally {
+            writer.out.release();
+        }
+    }
+
+    public static final class Writer implements Closeable, Flushable {
+        @NotNull
+        private final JsonWriter out;
+        @NotNull
+        private final Object sink;
+
+        private Writer(@NotNull JsonWriter out, @NotNull Object sink) {
+            this.out = out;
+            this.sink = sink;
+        }
+
+        public void write(@Nullable Object record) throws IOException {
+            Serializer.write(record, out);
+            out.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+            if (sink instanceof Flushable) ((Flushable) sink).flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                out.release();
+            }
+            if (sink instanceof Closeable) ((Closeable) sink).close();
+        }
+    }
+
+    // Both iterators frame records alike: one JSON value per line, blank lines skipped, errors reported by line number
+    private abstract static class LineIterator<T> implements Iterator<T> {
+        @NotNull
+        private final BufferedReader in;
+        @NotNull
+        private final Type type;
+        // Number of the last line read, from 1
+        long lineNumber = 0;
+
+        LineIterator(@NotNull BufferedReader in, @NotNull Type type) {
+            this.in = in;
+            this.type = type;
+        }
+
+        // Next line with content, null at the end of input
+        @Nullable
+        String nextLine() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                if (line == null) return null;
+                lineNumber++;
+            } while (line.trim().isEmpty());
+            return line;
+        }
+
+        @Nullable
+        Object decode(@NotNull String line, long number) {
+            try {
+                JsonReader reader = new JsonReader(line);
+                Object value = Deserializer.readValue(reader, type);
+                reader.endOfDocument();
+                return value;
+            } catch (IOException | RuntimeException e) {
+                throw new JSONException("Failed to decode record at line " + number, e);
+            }
+        }
+    }
+
+    private static final class SequentialIterator<T> extends LineIterator<T> {
+        @Nullable
+        private String line;
+        private boolean done = false;
+
+        SequentialIterator(@NotNull BufferedReader in, @NotNull Type type) {
+            super(in, type);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (line != null) return true;
+            if (done) return false;
+            try {
+                line = nextLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            done = line == null;
+            return !done;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String record = line;
+            line = null;
+            return (T) decode(record, lineNumber);
+        }
+    }
+
+    private static final class ParallelIterator<T> extends LineIterator<T> {
+        @NotNull
+        private final ParallelOptions options;
+        @NotNull
+        private final String[] lines;
+        @NotNull
+        private final long[] numbers;
+        @NotNull
+        private final Object[] batch;
+        private int position = 0;
+        private int size = 0;
+        private boolean eof = false;
+
+        // Batches of up to 64K lines, enough to reach a threshold below that: forEach decides from each batch's own
+        // size whether it goes through the pool or inline
+        ParallelIterator(@NotNull BufferedReader in, @NotNull Type type, @NotNull ParallelOptions options) {
+            super(in, type);
+            this.options = options;
+            long batchSize = Math.max(options.getThreshold(), (long) options.getChunkSize() * options.getPool().getParallelism() * 4);
+            lines = new String[(int) Math.min(1 << 16, batchSize)];
+            numbers = new long[lines.length];
+            batch = new Object[lines.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position < size) return true;
+            if (eof) return false;
+            try {
+                fill();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return position < size;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Object result = batch[position];
+            batch[position++] = null;
+            return (T) result;
+        }
+
+        private void fill() throws IOException {
+            int count = 0;
+            String line;
+            while (count < lines.length && (line = nextLine()) != null) {
+                numbers[count] = lineNumber;
+                lines[count++] = line;
+            }
+            eof = count < lines.length;
+            options.forEach(count, i -> {
+                try {
+                    batch[i] = decode(lines[i], numbers[i]);
+                } finally {
+                    lines[i] = null;
+                }
+            });
+            position = 0;
+            size = count;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.nio.CharBuffer;
+
+// Public members are the streaming API of JesCodec: read(in) consumes exactly one value
+public final class JsonReader implements Closeable {
+    @NotNull
+    private final Reader in;
+    @NotNull
+    private final char[] buffer;
+    @NotNull
+    private final CharBuffer chars;
+    private boolean pooled;
+    @Nullable
+    private StringBuilder builder;
+    @Nullable
+    private final StringCache keys = StringCache.getGlobal();
+    @Nullable
+    StringCache values = keys;
+    private int position = 0;
+    private int limit = 0;
+    private long offset = 0;
+
+    JsonReader(@NotNull Reader in) {
+        this.in = in;
+        buffer = BufferPool.CHARS.acquire();
+        chars = CharBuffer.wrap(buffer);
+        pooled = true;
+    }
+
+    JsonReader(@NotNull String text) {
+        in = new StringReader("");
+        buffer = text.isEmpty() ? new char[1] : text.toCharArray();
+        chars = CharBuffer.wrap(buffer);
+        limit = text.length();
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = 0;
+        int read;
+        do read = in.read(buffer, 0, buffer.length);
+        while (read == 0);
+        if (read < 0) return false;
+        limit = read;
+        return true;
+    }
+
+    private char next() throws IOException {
+        if (position == limit && !fill()) throw syntaxError("Unexpected end of input");
+        return buffer[position++];
+    }
+
+    int peek() throws IOException {
+        while (true) {
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == ' ' || c == '\n' || c == '\r' || c == '\t') position++;
+                else return c;
+            }
+            if (!fill()) return -1;
+        }
+    }
+
+    void expect(char c) throws IOException {
+        if (peek() != c) throw syntaxError("Expected '" + c + "'");
+        position++;
+    }
+
+    boolean consume(char c) throws IOException {
+        if (peek() != c) return false;
+        position++;
+        return true;
+    }
+
+    boolean separator(char close) throws IOException {
+        int c = peek();
+        position++;
+        if (c == ',') return true;
+        if (c == close) return false;
+        position--;
+        throw syntaxError("Expected ',' or '" + close + "'");
+    }
+
+    // Object members: if (in.beginObject()) do { switch (in.nextName(names)) { ... } } while (in.nextMember());
+    public boolean beginObject() throws IOException {
+        expect('{');
+        return !consume('}');
+    }
+
+    public boolean nextMember() throws IOException {
+        return separator('}');
+    }
+
+    public boolean nextNull() throws IOException {
+        if (peek() != 'n') return false;
+        if (!nextKeyword("null")) throw syntaxError("Expected null");
+        return true;
+    }
+
+    public long nextLong() throws IOException {
+        int c = peek();
+        if (c == '"') return Long.parseLong(nextString());
+        int end = literalEnd();
+        if (end >= 0 && end - position < 19) {
+            int i = c == '-' ? position + 1 : position;
+            long value = 0;
+            if (i < end) while (true) {
+                char digit = buffer[i];
+                if (digit < '0' || digit > '9') break;
+                value = value * 10 + (digit - '0');
+                if (++i == end) {
+                    position = end;
+                    return c == '-' ? -value : value;
+                }
+            }
+        }
+        String token = nextNumber();
+        if (token.length() < 19 && token.indexOf('.') < 0 && token.indexOf('e') < 0 && token.indexOf('E') < 0) try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException ignored) {
+        }
+        return number(token).longValue();
+    }
+
+    public double nextDouble() throws IOException {
+        if (peek() == '"') return NumberCodec.parseDouble(nextString());
+        int end = literalEnd();
+        if (end >= 0) {
+            double value = NumberCodec.parseDouble(chars, position, end);
+            if (value == value) {
+                position = end;
+                return value;
+            }
+        }
+        return Double.parseDouble(nextNumber());
+    }
+
+    public float nextFloat() throws IOException {
+        if (peek() == '"') return NumberCodec.parseFloat(nextString());
+        int end = literalEnd();
+        if (end >= 0) {
+            float value = NumberCodec.parseFloat(chars, position, end);
+            if (value == value) {
+                position = end;
+                return value;
+            }
+        }
+        return Float.parseFloat(nextNumber());
+    }
+
+    public boolean nextBoolean() throws IOException {
+        int c = peek();
+        if (c == '"') return Boolean.parseBoolean(nextString());
+        if (c != 't' && c != 'f') return number(nextNumber()).intValue() != 0;
+        if (nextKeyword(c == 't' ? "true" : "false")) return c == 't';
+        throw syntaxError("Expected boolean");
+    }
+
+    public char nextChar() throws IOException {
+        if (peek() != '"') return (char) number(nextNumber()).intValue();
+        String value = nextString();
+        if (value.length() != 1) throw syntaxError("Expected single character");
+        return value.charAt(0);
+    }
+
+    @NotNull
+    private String nextNumber() throws IOException {
+        int c = peek();
+        String token = nextLiteral();
+        char last = token.isEmpty() ? 0 : token.charAt(token.length() - 1);
+        if ((c != '-' && (c < '0' || c > '9')) || last < '0' || last > '9')
+            throw syntaxError(token.isEmpty() ? "Expected number" : "Unexpected token '" + token + "'");
+        return token;
+    }
+
+    @NotNull
+    private Number number(@NotNull String token) {
+        Object number = JSONObject.stringToValue(token);
+        if (number instanceof Number) return (Number) number;
+        throw syntaxError("Unexpected token '" + token + "'");
+    }
+
+    @NotNull
+    public String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return keys != null ? keys.canonicalizeKey(name) : name;
+    }
+
+    // Index of the name in names, -1 if absent. Looked up in place when it is unescaped and lies entirely in the
+    // buffer, without allocating it
+    public int nextName(@NotNull NameTable names) throws IOException {
+        expect('"');
+        int start = position;
+        int hash = 0;
+        while (position < limit) {
+            char c = buffer[position];
+            if (c == '"') {
+                int index = names.get(buffer, start, position++ - start, hash);
+                expect(':');
+                return index;
+            }
+            if (c == '\\' || c < ' ') break;
+            hash = 31 * hash + c;
+            position++;
+        }
+        position = start - 1;
+        String name = nextString();
+        expect(':');
+        return names.get(name);
+    }
+
+    @Nullable
+    ClassBinding.Slot nextSlot(@NotNull ClassBinding binding) throws IOException {
+        int index = nextName(binding.names);
+        return index < 0 ? null : binding.slots[index];
+    }
+
+    @NotNull
+    public String nextString() throws IOException {
+        expect('"');
+        int start = position;
+        while (position < limit) {
+            char c = buffer[position];
+            if (c == '"') return new String(buffer, start, position++ - start);
+            if (c == '\\' || c < ' ') break;
+            position++;
+        }
+        StringBuilder builder = builder();
+        builder.append(buffer, start, position - start);
+        while (true) {
+            char c = next();
+            if (c == '"') return builder.toString();
+            if (c == '\\') switch (c = next()) {
+                case 'b':
+                    c = '\b';
+                    break;
+                case 't':
+                    c = '\t';
+                    break;
+                case 'n':
+                    c = '\n';
+                    break;
+                case 'f':
+                    c = '\f';
+                    break;
+                case 'r':
+                    c = '\r';
+                    break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit < 0) throw syntaxError("Illegal escape");
+                        code = (code << 4) | digit;
+                    }
+                    c = (char) code;
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    break;
+                default:
+                    throw syntaxError("Illegal escape");
+            }
+            else if (c < ' ') throw syntaxError("Unterminated string");
+            builder.append(c);
+        }
+    }
+
+    // Tree value: JSONObject, JSONArray, String, Number, Boolean or JSONObject.NULL
+    @NotNull
+    public Object nextValue() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '{': {
+                position++;
+                JSONObject result = new JSONObject();
+                if (!consume('}')) do {
+                    String key = nextName();
+                    result.put(key, nextValue());
+                } while (separator('}'));
+                return result;
+            }
+            case '[': {
+                position++;
+                JSONArray result = new JSONArray();
+                if (!consume(']')) do result.put(nextValue());
+                while (separator(']'));
+                return result;
+            }
+            case '"':
+                return values != null ? values.canonicalize(nextString()) : nextString();
+            case -1:
+                throw syntaxError("Unexpected end of input");
+            default:
+                String token = nextLiteral();
+                if (c == 't' || c == 'f' || c == 'n') {
+                    if ("true".equals(token)) return Boolean.TRUE;
+                    if ("false".equals(token)) return Boolean.FALSE;
+                    if ("null".equals(token)) return JSONObject.NULL;
+                } else if (c == '-' || (c >= '0' && c <= '9')) return number(token);
+                throw syntaxError(token.isEmpty() ? "Unexpected character '" + (char) c + "'" : "Unexpected token '" + token + "'");
+        }
+    }
+
+    // Binds the next value to type like the reflective deserializer does, null for a JSON null
+    @Nullable
+    public Object readValue(@NotNull Type type) throws IOException {
+        return Deserializer.readValue(this, type);
+    }
+
+    public void skipValue() throws IOException {
+        int c = peek();
+        if (c == '{') {
+            position++;
+            if (!consume('}')) do {
+                nextString();
+                expect(':');
+                skipValue();
+            } while (separator('}'));
+        } else if (c == '[') {
+            position++;
+            if (!consume(']')) do skipValue();
+            while (separator(']'));
+        } else if (c == '"') nextString();
+        else nextValue();
+    }
+
+    @NotNull
+    private String nextLiteral() throws IOException {
+        peek();
+        int start = position;
+        while (position < limit)
+            if (isLiteral(buffer[position])) position++;
+            else return new String(buffer, start, position - start);
+        StringBuilder builder = builder();
+        builder.append(buffer, start, position - start);
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (!isLiteral(c)) break;
+            builder.append(c);
+            position++;
+        }
+        return builder.toString();
+    }
+
+    private int literalEnd() {
+        int end = position;
+        while (end < limit)
+            if (isLiteral(buffer[end])) end++;
+            else return end;
+        return -1;
+    }
+
+    private boolean nextKeyword(@NotNull String keyword) throws IOException {
+        peek();
+        int end = literalEnd();
+        if (end < 0) return keyword.equals(nextLiteral());
+        int start = position;
+        position = end;
+        if (end - start != keyword.length()) return false;
+        for (int i = 0; i < keyword.length(); i++) if (buffer[start + i] != keyword.charAt(i)) return false;
+        return true;
+    }
+
+    @NotNull
+    private StringBuilder builder() {
+        StringBuilder builder = this.builder;
+        if (builder == null) return this.builder = new StringBuilder();
+        builder.setLength(0);
+        return builder;
+    }
+
+    private static boolean isLiteral(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '-' || c == '+' || c == '.';
+    }
+
+    void endOfDocument() throws IOException {
+        if (peek() != -1) throw syntaxError("Unexpected content after end of document");
+    }
+
+    @NotNull
+    JSONException syntaxError(@NotNull String message) {
+        return new JSONException(message + " at character " + (offset + position));
+    }
+
+    void release() {
+        if (!pooled) return;
+        pooled = false;
+        BufferPool.CHARS.release(buffer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+        in.close();
+    }
+}
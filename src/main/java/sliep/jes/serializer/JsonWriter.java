@@ -0,0 +1,341 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+// Public members are the streaming API of JesCodec: write(value, out) writes exactly one value
+public abstract class JsonWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private boolean first;
+
+    JsonWriter() {
+    }
+
+    abstract void write(char c) throws IOException;
+
+    abstract void write(@NotNull CharSequence s, int start, int end) throws IOException;
+
+    void flush() throws IOException {
+    }
+
+    void release() {
+    }
+
+    final void write(@NotNull String s) throws IOException {
+        write(s, 0, s.length());
+    }
+
+    // Object members: beginObject(), then writeName(name) before each value, then endObject()
+    public final void beginObject() throws IOException {
+        write('{');
+        first = true;
+    }
+
+    public final void writeName(@NotNull String name) throws IOException {
+        if (first) first = false;
+        else write(',');
+        writeString(name);
+        write(':');
+    }
+
+    public final void endObject() throws IOException {
+        write('}');
+        first = false;
+    }
+
+    // Any value, written like the reflective serializer does
+    public final void writeValue(@Nullable Object value) throws IOException {
+        Serializer.write(value, this);
+    }
+
+    public final void writeNull() throws IOException {
+        write("null");
+    }
+
+    public final void writeBoolean(boolean value) throws IOException {
+        write(value ? "true" : "false");
+    }
+
+    public void writeLong(long value) throws IOException {
+        write(Long.toString(value));
+    }
+
+    public void writeDouble(double value) throws IOException {
+        if (Double.isInfinite(value) || Double.isNaN(value))
+            throw new JSONException("JSON does not allow non-finite numbers.");
+        double magnitude = Math.abs(value);
+        int fractionDigits = NumberCodec.fractionDigits(magnitude);
+        if (fractionDigits < 0) writeDecimal(Double.toString(value));
+        else {
+            if (value < 0) write('-');
+            writeFixed(NumberCodec.unscaled(magnitude, fractionDigits), fractionDigits);
+        }
+    }
+
+    public void writeFloat(float value) throws IOException {
+        if (Float.isInfinite(value) || Float.isNaN(value))
+            throw new JSONException("JSON does not allow non-finite numbers.");
+        float magnitude = Math.abs(value);
+        int fractionDigits = NumberCodec.fractionDigits(magnitude);
+        if (fractionDigits < 0) writeDecimal(Float.toString(value));
+        else {
+            if (value < 0) write('-');
+            writeFixed(NumberCodec.unscaled(magnitude, fractionDigits), fractionDigits);
+        }
+    }
+
+    private void writeFixed(long unscaled, int fractionDigits) throws IOException {
+        while (fractionDigits > 0 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            fractionDigits--;
+        }
+        long scale = NumberCodec.power(fractionDigits);
+        writeLong(unscaled / scale);
+        if (fractionDigits == 0) return;
+        write('.');
+        long fraction = unscaled % scale;
+        for (long digit = scale / 10; digit > 0; digit /= 10) write((char) ('0' + fraction / digit % 10));
+    }
+
+    final void writeNumber(@NotNull Number value) throws IOException {
+        if (value instanceof Double) writeDouble(value.doubleValue());
+        else if (value instanceof Float) writeFloat(value.floatValue());
+        else write(JSONObject.numberToString(value));
+    }
+
+    private void writeDecimal(@NotNull String value) throws IOException {
+        int end = value.length();
+        if (value.indexOf('.') > 0 && value.indexOf('E') < 0) {
+            while (value.charAt(end - 1) == '0') end--;
+            if (value.charAt(end - 1) == '.') end--;
+        }
+        write(value, 0, end);
+    }
+
+    public final void writeString(@NotNull CharSequence s) throws IOException {
+        write('"');
+        int length = s.length();
+        int run = 0;
+        char b, c = 0;
+        for (int i = 0; i < length; i++) {
+            b = c;
+            c = s.charAt(i);
+            String escape;
+            switch (c) {
+                case '\\':
+                    escape = "\\\\";
+                    break;
+                case '"':
+                    escape = "\\\"";
+                    break;
+                case '/':
+                    if (b != '<') continue;
+                    escape = "\\/";
+                    break;
+                case '\b':
+                    escape = "\\b";
+                    break;
+                case '\t':
+                    escape = "\\t";
+                    break;
+                case '\n':
+                    escape = "\\n";
+                    break;
+                case '\f':
+                    escape = "\\f";
+                    break;
+                case '\r':
+                    escape = "\\r";
+                    break;
+                default:
+                    if (c >= ' ' && (c < 0x80 || c >= 0xA0) && (c < 0x2000 || c >= 0x2100)) continue;
+                    escape = null;
+            }
+            if (run < i) write(s, run, i);
+            run = i + 1;
+            if (escape != null) write(escape);
+            else {
+                write("\\u");
+                write(HEX[c >>> 12]);
+                write(HEX[(c >>> 8) & 0xF]);
+                write(HEX[(c >>> 4) & 0xF]);
+                write(HEX[c & 0xF]);
+            }
+        }
+        if (run < length) write(s, run, length);
+        write('"');
+    }
+
+    static final class AppendableWriter extends JsonWriter {
+        @NotNull
+        private final Appendable out;
+
+        AppendableWriter(@NotNull Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        void write(char c) throws IOException {
+            out.append(c);
+        }
+
+        @Override
+        void write(@NotNull CharSequence s, int start, int end) throws IOException {
+            out.append(s, start, end);
+        }
+    }
+
+    // The one UTF-8 encoder: chars are encoded into a pooled byte[] whose full chunks are handed to drain
+    abstract static class ByteWriter extends JsonWriter {
+        @NotNull
+        private final byte[] buffer = BufferPool.BYTES.acquire();
+        private boolean pooled = true;
+        private int position = 0;
+
+        abstract void drain(@NotNull byte[] bytes, int length) throws IOException;
+
+        @Override
+        public void writeLong(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                super.writeLong(value);
+                return;
+            }
+            if (position > buffer.length - 20) flush();
+            if (value < 0) {
+                buffer[position++] = '-';
+                value = -value;
+            }
+            int end = position + 1;
+            for (long bound = 10; end - position < 19 && value >= bound; bound *= 10) end++;
+            position = end;
+            do {
+                buffer[--end] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+        }
+
+        @Override
+        void write(char c) throws IOException {
+            if (c < 0x80) {
+                if (position == buffer.length) flush();
+                buffer[position++] = (byte) c;
+            } else write(String.valueOf(c), 0, 1);
+        }
+
+        @Override
+        void write(@NotNull CharSequence s, int start, int end) throws IOException {
+            byte[] buffer = this.buffer;
+            int position = this.position;
+            for (int i = start; i < end; i++) {
+                if (position > buffer.length - 4) {
+                    this.position = position;
+                    flush();
+                    position = 0;
+                }
+                char c = s.charAt(i);
+                if (c < 0x80) buffer[position++] = (byte) c;
+                else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    int codePoint = Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(s.charAt(i + 1)) ?
+                            Character.toCodePoint(c, s.charAt(++i)) : -1;
+                    if (codePoint < 0) buffer[position++] = '?';
+                    else {
+                        buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                        buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                        buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                    }
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            this.position = position;
+        }
+
+        @Override
+        void flush() throws IOException {
+            if (position == 0) return;
+            drain(buffer, position);
+            position = 0;
+        }
+
+        @Override
+        void release() {
+            if (!pooled) return;
+            pooled = false;
+            BufferPool.BYTES.release(buffer);
+        }
+    }
+
+    static final class Utf8Writer extends ByteWriter {
+        @NotNull
+        private final OutputStream out;
+
+        Utf8Writer(@NotNull OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        void drain(@NotNull byte[] bytes, int length) throws IOException {
+            out.write(bytes, 0, length);
+        }
+    }
+
+    static final class BufferWriter extends ByteWriter {
+        @Nullable
+        private final ByteBufferChain chain;
+        @NotNull
+        private ByteBuffer buffer;
+
+        BufferWriter(@NotNull ByteBuffer buffer) {
+            this.chain = null;
+            this.buffer = buffer;
+        }
+
+        BufferWriter(@NotNull ByteBufferChain chain) {
+            this.chain = chain;
+            this.buffer = chain.next();
+        }
+
+        @NotNull
+        ByteBuffer buffer() throws IOException {
+            flush();
+            return buffer;
+        }
+
+        @Override
+        void drain(@NotNull byte[] bytes, int length) {
+            int offset = 0;
+            while (length - offset > buffer.remaining()) {
+                int count = buffer.remaining();
+                buffer.put(bytes, offset, count);
+                offset += count;
+                overflow();
+            }
+            buffer.put(bytes, offset, length - offset);
+        }
+
+        private void overflow() {
+            if (chain != null) {
+                buffer = chain.next();
+                return;
+            }
+            int capacity = Math.max(buffer.capacity(), 32) << 1;
+            if (capacity < 0) throw new OutOfMemoryError("Required buffer size too large");
+            ByteBuffer grown = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+
+// Open-addressing index of member names, looked up by the readers without materializing the name being read
+public final class NameTable {
+    @NotNull
+    private final String[] names;
+    // Index into names + 1, 0 for an empty bucket
+    @NotNull
+    private final int[] table;
+
+    private NameTable(@NotNull String[] names) {
+        this.names = names;
+        this.table = new int[Integer.highestOneBit(Math.max(names.length, 1) * 2 - 1) << 1];
+        for (int i = 0; i < names.length; i++)
+            if (get(names[i]) < 0) {
+                int index = spread(names[i].hashCode()) & (table.length - 1);
+                while (table[index] != 0) index = (index + 1) & (table.length - 1);
+                table[index] = i + 1;
+            }
+    }
+
+    // Indexes follow the order of names: a repeated name keeps its first index
+    @NotNull
+    public static NameTable of(@NotNull String... names) {
+        return new NameTable(names.clone());
+    }
+
+    int get(@NotNull String name) {
+        int mask = table.length - 1;
+        for (int index = spread(name.hashCode()) & mask; ; index = (index + 1) & mask) {
+            int entry = table[index];
+            if (entry == 0) return -1;
+            if (names[entry - 1].equals(name)) return entry - 1;
+        }
+    }
+
+    // Same lookup as get(String), over a name that has not been materialized: hash is the name's String.hashCode()
+    int get(@NotNull char[] chars, int start, int length, int hash) {
+        int mask = table.length - 1;
+        for (int index = spread(hash) & mask; ; index = (index + 1) & mask) {
+            int entry = table[index];
+            if (entry == 0) return -1;
+            String name = names[entry - 1];
+            if (name.length() != length) continue;
+            int i = 0;
+            while (i < length && name.charAt(i) == chars[start + i]) i++;
+            if (i == length) return entry - 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
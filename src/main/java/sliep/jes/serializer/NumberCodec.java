@@ -0,0 +1,196 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigInteger;
+
+final class NumberCodec {
+    private static final long INVALID = -1;
+    private static final int SMALLEST_POWER = -342;
+    private static final int LARGEST_POWER = 308;
+    private static final double[] DOUBLE_POWERS = new double[23];
+    private static final float[] FLOAT_POWERS = new float[11];
+    private static final long[] LONG_POWERS = new long[19];
+    // 128-bit truncated approximations of 5^q for SMALLEST_POWER <= q <= LARGEST_POWER, high word first
+    private static final long[] POWERS_OF_FIVE = new long[(LARGEST_POWER - SMALLEST_POWER + 1) * 2];
+
+    static {
+        double power = 1;
+        for (int i = 0; i < DOUBLE_POWERS.length; i++, power *= 10) DOUBLE_POWERS[i] = power;
+        for (int i = 0; i < FLOAT_POWERS.length; i++) FLOAT_POWERS[i] = (float) DOUBLE_POWERS[i];
+        LONG_POWERS[0] = 1;
+        for (int i = 1; i < LONG_POWERS.length; i++) LONG_POWERS[i] = LONG_POWERS[i - 1] * 10;
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+            BigInteger value;
+            if (q >= 0) {
+                value = five.pow(q);
+                int bits = value.bitLength();
+                value = bits <= 128 ? value.shiftLeft(128 - bits) : value.shiftRight(bits - 128);
+            } else {
+                BigInteger power5 = five.pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                value = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                if (value.bitLength() > 128) value = value.shiftRight(value.bitLength() - 128);
+            }
+            int index = (q - SMALLEST_POWER) * 2;
+            POWERS_OF_FIVE[index] = value.shiftRight(64).longValue();
+            POWERS_OF_FIVE[index + 1] = value.longValue();
+        }
+    }
+
+    private NumberCodec() {
+    }
+
+    // NaN when s[start, end) is not a plain decimal this codec handles: the caller falls back to Double.parseDouble
+    static double parseDouble(@NotNull CharSequence s, int start, int end) {
+        long bits = parse(s, start, end, false);
+        return bits == INVALID ? Double.NaN : Double.longBitsToDouble(bits);
+    }
+
+    static float parseFloat(@NotNull CharSequence s, int start, int end) {
+        long bits = parse(s, start, end, true);
+        return bits == INVALID ? Float.NaN : Float.intBitsToFloat((int) bits);
+    }
+
+    static double parseDouble(@NotNull String s) {
+        double value = parseDouble(s, 0, s.length());
+        return value == value ? value : Double.parseDouble(s);
+    }
+
+    static float parseFloat(@NotNull String s) {
+        float value = parseFloat(s, 0, s.length());
+        return value == value ? value : Float.parseFloat(s);
+    }
+
+    private static long parse(@NotNull CharSequence s, int start, int end, boolean single) {
+        int i = start;
+        boolean negative = i < end && s.charAt(i) == '-';
+        if (negative) i++;
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        int digits = 0;
+        char c;
+        for (; i < end && (c = s.charAt(i)) >= '0' && c <= '9'; i++, digits++)
+            if (mantissa != 0 || c != '0') {
+                if (significant++ == 19) return INVALID;
+                mantissa = mantissa * 10 + (c - '0');
+            }
+        if (digits == 0) return INVALID;
+        if (i < end && s.charAt(i) == '.') {
+            digits = 0;
+            for (i++; i < end && (c = s.charAt(i)) >= '0' && c <= '9'; i++, digits++, exponent--)
+                if (mantissa != 0 || c != '0') {
+                    if (significant++ == 19) return INVALID;
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+            if (digits == 0) return INVALID;
+        }
+        if (i < end && ((c = s.charAt(i)) == 'e' || c == 'E')) {
+            boolean negativeExponent = ++i < end && s.charAt(i) == '-';
+            if (negativeExponent || (i < end && s.charAt(i) == '+')) i++;
+            int value = 0;
+            digits = 0;
+            for (; i < end && (c = s.charAt(i)) >= '0' && c <= '9'; i++, digits++)
+                if (value < 100000) value = value * 10 + (c - '0');
+            if (digits == 0) return INVALID;
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end) return INVALID;
+        long bits;
+        if (single) {
+            if (mantissa == 0) bits = 0;
+            else if (exponent >= -10 && exponent <= 10 && Long.compareUnsigned(mantissa, 1 << 24) <= 0) {
+                float value = (float) mantissa;
+                bits = Float.floatToRawIntBits(exponent < 0 ? value / FLOAT_POWERS[-exponent] : value * FLOAT_POWERS[exponent]);
+            } else bits = eiselLemire(mantissa, exponent, 23, -127, 0xFF, -65, 38, -17, 10);
+            return negative ? bits | 1L << 31 : bits;
+        }
+        if (mantissa == 0) bits = 0;
+        else if (exponent >= -22 && exponent <= 22 && Long.compareUnsigned(mantissa, 1L << 53) <= 0) {
+            double value = (double) mantissa;
+            bits = Double.doubleToRawLongBits(exponent < 0 ? value / DOUBLE_POWERS[-exponent] : value * DOUBLE_POWERS[exponent]);
+        } else bits = eiselLemire(mantissa, exponent, 52, -1023, 0x7FF, SMALLEST_POWER, LARGEST_POWER, -4, 23);
+        return negative ? bits | 1L << 63 : bits;
+    }
+
+    // Eisel-Lemire: w * 10^q rounded to nearest even, as the unsigned exponent and mantissa bits of the target type
+    private static long eiselLemire(long w, int q, int mantissaBits, int minimumExponent, int infinitePower,
+                                    int smallestPower, int largestPower, int minRoundToEven, int maxRoundToEven) {
+        if (q < smallestPower) return 0;
+        if (q > largestPower) return (long) infinitePower << mantissaBits;
+        int leadingZeros = Long.numberOfLeadingZeros(w);
+        w <<= leadingZeros;
+        int index = (q - SMALLEST_POWER) * 2;
+        long high = multiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        long precisionMask = -1L >>> (mantissaBits + 3);
+        if ((high & precisionMask) == precisionMask) {
+            long secondHigh = multiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0) high++;
+        }
+        int upperBit = (int) (high >>> 63);
+        int shift = upperBit + 64 - mantissaBits - 3;
+        long mantissa = high >>> shift;
+        int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperBit - leadingZeros - minimumExponent;
+        if (power2 <= 0) {
+            if (-power2 + 1 >= 64) return 0;
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            return mantissa < 1L << mantissaBits ? mantissa : 1L << mantissaBits;
+        }
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= minRoundToEven && q <= maxRoundToEven && (mantissa & 3) == 1 && mantissa << shift == high)
+            mantissa &= ~1L;
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 2L << mantissaBits) {
+            mantissa = 1L << mantissaBits;
+            power2++;
+        }
+        mantissa &= ~(1L << mantissaBits);
+        if (power2 >= infinitePower) return (long) infinitePower << mantissaBits;
+        return mantissa | (long) power2 << mantissaBits;
+    }
+
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32, y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+        long p01 = x0 * y1;
+        long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL);
+        return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+    // Fraction digits of the shortest plain decimal that parses back to value, or -1 when Double.toString is needed
+    static int fractionDigits(double value) {
+        if (!(value >= 1e-3 && value < 1e7)) return -1;
+        for (int k = 0; k < 18; k++) {
+            double scaled = value * DOUBLE_POWERS[k];
+            if (scaled >= 0x1p53) return -1;
+            if (Math.round(scaled) / DOUBLE_POWERS[k] == value) return k;
+        }
+        return -1;
+    }
+
+    static int fractionDigits(float value) {
+        if (!(value >= 1e-3f && value < 1e7f)) return -1;
+        for (int k = 0; k < 18; k++) {
+            double scaled = value * DOUBLE_POWERS[k];
+            if (scaled >= 0x1p53) return -1;
+            double decimal = Math.round(scaled) / DOUBLE_POWERS[k];
+            // A double halfway between two floats would be rounded twice: leave those to Float.toString
+            if ((float) decimal == value && (Double.doubleToRawLongBits(decimal) & 0x1FFFFFFFL) != 0x10000000L) return k;
+        }
+        return -1;
+    }
+
+    static long unscaled(double value, int fractionDigits) {
+        return Math.round(value * DOUBLE_POWERS[fractionDigits]);
+    }
+
+    static long power(int exponent) {
+        return LONG_POWERS[exponent];
+    }
+}
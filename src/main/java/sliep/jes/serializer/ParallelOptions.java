@@ -0,0 +1,71 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+public final class ParallelOptions {
+    @NotNull
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final int chunkSize;
+
+    public ParallelOptions() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelOptions(@NotNull ForkJoinPool pool) {
+        this(pool, 4096, 512);
+    }
+
+    public ParallelOptions(@NotNull ForkJoinPool pool, int threshold, int chunkSize) {
+        if (threshold < 0 || chunkSize < 1)
+            throw new IllegalArgumentException("Invalid threshold " + threshold + " or chunk size " + chunkSize);
+        this.pool = pool;
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+    }
+
+    @NotNull
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    void forEach(int size, @NotNull IntConsumer action) {
+        if (size < threshold || size <= chunkSize) for (int i = 0; i < size; i++) action.accept(i);
+        else pool.invoke(new Chunk(action, 0, size));
+    }
+
+    private final class Chunk extends RecursiveAction {
+        @NotNull
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+
+        Chunk(@NotNull IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) action.accept(i);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Chunk(action, from, middle), new Chunk(action, middle, to));
+        }
+    }
+}
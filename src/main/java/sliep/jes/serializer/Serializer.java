@@ -1,23 +1,42 @@
 package sliep.jes.serializer;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import sliep.jes.reflection.JesUtilsKt;
-import sliep.jes.serializer.annotations.JsonName;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
 
 @SuppressWarnings({"unchecked", "rawtypes"})
 public final class Serializer {
     static final int MODIFIER_STATIC_TRANSIENT = Modifier.TRANSIENT | Modifier.STATIC;
     static final int MODIFIER_ENUM = 16384;
-    static final HashMap<Class<?>, UserSerializer> serializers = new HashMap<>();
+
+    @NotNull
+    public static Object jsonValue(@NotNull Object value, @NotNull ParallelOptions options) {
+        Object[] elements;
+        if (value instanceof Object[]) elements = (Object[]) value;
+        else if (value instanceof Collection<?>) elements = ((Collection<?>) value).toArray();
+        else if (value instanceof Iterable<?>) {
+            ArrayList<Object> list = new ArrayList<>();
+            for (Object element : (Iterable<?>) value) list.add(element);
+            elements = list.toArray();
+        } else return jsonValue(value);
+        Object[] values = new Object[elements.length];
+        options.forEach(elements.length, i -> {
+            Object element = elements[i];
+            if (element != null) values[i] = jsonValue(element);
+        });
+        JSONArray result = new JSONArray();
+        for (Object element : values) result.put(element);
+        return result;
+    }
 
     @NotNull
     public static Object jsonValue(@NotNull Object value) {
@@ -26,11 +45,16 @@ public final class Serializer {
             return value;
         if (type.isArray()) {
             JSONArray result = new JSONArray();
-            if (value instanceof Object[]) {
+            if (value instanceof Object[])
                 for (Object element : ((Object[]) value)) result.put(element == null ? null : jsonValue(element));
-            } else {
-                for (int i = 0; i < Array.getLength(value); i++) result.put(Array.get(value, i));
-            }
+            else if (value instanceof int[]) for (int element : (int[]) value) result.put(element);
+            else if (value instanceof long[]) for (long element : (long[]) value) result.put(element);
+            else if (value instanceof double[]) for (double element : (double[]) value) result.put(element);
+            else if (value instanceof float[]) for (float element : (float[]) value) result.put(element);
+            else if (value instanceof short[]) for (short element : (short[]) value) result.put((Object) element);
+            else if (value instanceof byte[]) for (byte element : (byte[]) value) result.put((Object) element);
+            else if (value instanceof char[]) for (char element : (char[]) value) result.put((Object) element);
+            else if (value instanceof boolean[]) for (boolean element : (boolean[]) value) result.put(element);
             return result;
         }
         if ((type.getModifiers() & MODIFIER_ENUM) != 0)
@@ -49,24 +73,218 @@ public final class Serializer {
             }
             return result;
         }
+        JesCodec codec = CodecRegistry.get(type);
+        if (codec != null) return codec.toJson(value);
         JSONObject result = new JSONObject();
-        for (Field field : JesUtilsKt.accessor.fields(type))
-            if ((field.getModifiers() & MODIFIER_STATIC_TRANSIENT) == 0) try {
-                JsonName jsonName = field.getAnnotation(JsonName.class);
-                Object fValue = field.get(value);
-                if (fValue != null)
-                    result.put(jsonName == null ? field.getName() : jsonName.value(), valueFor(field, fValue));
+        for (ClassBinding.Slot slot : ClassBinding.of(type).slots)
+            try {
+                Object fValue = slot.accessor.get(value);
+                if (fValue != null) result.put(slot.name, valueFor(slot, fValue));
             } catch (IllegalAccessException ignored) {
             }
         return result;
     }
 
+    public static void write(@Nullable Object value, @NotNull Appendable out) throws IOException {
+        write(value, new JsonWriter.AppendableWriter(out));
+    }
+
+    public static void write(@Nullable Object value, @NotNull OutputStream out) throws IOException {
+        JsonWriter writer = new JsonWriter.Utf8Writer(out);
+        try {
+            write(value, writer);
+            writer.flush();
+        } finally {
+            writer.release();
+        }
+    }
+
     @NotNull
-    private static Object valueFor(@NotNull Field field, @NotNull Object value) {
-        for (Annotation annotation : field.getDeclaredAnnotations()) {
-            UserSerializer serializer = serializers.get(annotation.annotationType());
-            if (serializer != null) return serializer.toJson(annotation, value);
+    public static ByteBuffer write(@Nullable Object value, @NotNull ByteBuffer out) throws IOException {
+        JsonWriter.BufferWriter writer = new JsonWriter.BufferWriter(out);
+        try {
+            write(value, writer);
+            return writer.buffer();
+        } finally {
+            writer.release();
+        }
+    }
+
+    public static void write(@Nullable Object value, @NotNull ByteBufferChain out) throws IOException {
+        JsonWriter writer = new JsonWriter.BufferWriter(out);
+        try {
+            write(value, writer);
+            writer.flush();
+        } finally {
+            writer.release();
         }
+    }
+
+    static void write(@Nullable Object value, @NotNull JsonWriter out) throws IOException {
+        if (value == null || value == JSONObject.NULL) {
+            out.writeNull();
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (value instanceof String) {
+            out.writeString((String) value);
+            return;
+        }
+        if (value instanceof Number) {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+                out.writeLong(((Number) value).longValue());
+            else out.writeNumber((Number) value);
+            return;
+        }
+        if (type == Boolean.class) {
+            out.writeBoolean((Boolean) value);
+            return;
+        }
+        if (type == Character.class) {
+            out.writeString(value.toString());
+            return;
+        }
+        if (type.isArray()) {
+            out.write('[');
+            if (value instanceof Object[]) {
+                Object[] array = (Object[]) value;
+                for (int i = 0; i < array.length; i++) {
+                    if (i > 0) out.write(',');
+                    write(array[i], out);
+                }
+            } else writePrimitiveArray(value, out);
+            out.write(']');
+            return;
+        }
+        if ((type.getModifiers() & MODIFIER_ENUM) != 0) {
+            if (value instanceof ValueEnum) out.writeLong(((ValueEnum) value).getValue());
+            else out.writeString(((Enum<?>) value).name());
+            return;
+        }
+        if (value instanceof Iterable<?>) {
+            out.write('[');
+            boolean first = true;
+            for (Object element : (Iterable<?>) value) {
+                if (first) first = false;
+                else out.write(',');
+                write(element, out);
+            }
+            out.write(']');
+            return;
+        }
+        if (value instanceof JSONObject) {
+            out.write(value.toString());
+            return;
+        }
+        JesCodec codec = CodecRegistry.get(type);
+        if (codec != null) {
+            codec.write(value, out);
+            return;
+        }
+        out.write('{');
+        boolean first = true;
+        if (value instanceof Map<?, ?>) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object element = entry.getValue();
+                if (element == null) continue;
+                if (first) first = false;
+                else out.write(',');
+                out.writeString(entry.getKey().toString());
+                out.write(':');
+                write(element, out);
+            }
+        } else for (ClassBinding.Slot slot : ClassBinding.of(type).slots)
+            try {
+                if (slot.serializer == null && writePrimitiveField(slot, value, first, out)) {
+                    first = false;
+                    continue;
+                }
+                Object fValue = slot.accessor.get(value);
+                if (fValue == null) continue;
+                if (first) first = false;
+                else out.write(',');
+                out.writeString(slot.name);
+                out.write(':');
+                write(slot.serializer != null ? slot.serializer.toJson(slot.annotation, fValue) : fValue, out);
+            } catch (IllegalAccessException ignored) {
+            }
+        out.write('}');
+    }
+
+    private static boolean writePrimitiveField(@NotNull ClassBinding.Slot slot, @NotNull Object value, boolean first, @NotNull JsonWriter out) throws IOException, IllegalAccessException {
+        Class<?> type = slot.rawType;
+        if (type != int.class && type != long.class && type != double.class && type != boolean.class) return false;
+        long integer = 0;
+        double decimal = 0;
+        boolean bool = false;
+        if (type == int.class) integer = slot.accessor.getInt(value);
+        else if (type == long.class) integer = slot.accessor.getLong(value);
+        else if (type == double.class) decimal = slot.accessor.getDouble(value);
+        else bool = slot.accessor.getBoolean(value);
+        if (!first) out.write(',');
+        out.writeString(slot.name);
+        out.write(':');
+        if (type == double.class) out.writeDouble(decimal);
+        else if (type == boolean.class) out.writeBoolean(bool);
+        else out.writeLong(integer);
+        return true;
+    }
+
+    private static void writePrimitiveArray(@NotNull Object value, @NotNull JsonWriter out) throws IOException {
+        if (value instanceof int[]) {
+            int[] array = (int[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeLong(array[i]);
+            }
+        } else if (value instanceof long[]) {
+            long[] array = (long[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeLong(array[i]);
+            }
+        } else if (value instanceof double[]) {
+            double[] array = (double[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeDouble(array[i]);
+            }
+        } else if (value instanceof float[]) {
+            float[] array = (float[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeFloat(array[i]);
+            }
+        } else if (value instanceof short[]) {
+            short[] array = (short[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeLong(array[i]);
+            }
+        } else if (value instanceof byte[]) {
+            byte[] array = (byte[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeLong(array[i]);
+            }
+        } else if (value instanceof char[]) {
+            char[] array = (char[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeString(String.valueOf(array[i]));
+            }
+        } else if (value instanceof boolean[]) {
+            boolean[] array = (boolean[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeBoolean(array[i]);
+            }
+        }
+    }
+
+    @NotNull
+    private static Object valueFor(@NotNull ClassBinding.Slot slot, @NotNull Object value) {
+        if (slot.serializer != null) return slot.serializer.toJson(slot.annotation, value);
         return jsonValue(value);
     }
 }
@@ -0,0 +1,32 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@SuppressWarnings("rawtypes")
+final class SerializerRegistry {
+    private static final AtomicReference<Map<Class<?>, UserSerializer>> snapshot =
+            new AtomicReference<>(Collections.emptyMap());
+
+    private SerializerRegistry() {
+    }
+
+    static void register(@NotNull Class<?> annotationType, @NotNull UserSerializer serializer) {
+        Map<Class<?>, UserSerializer> current, next;
+        do {
+            current = snapshot.get();
+            HashMap<Class<?>, UserSerializer> copy = new HashMap<>(current);
+            copy.put(annotationType, serializer);
+            next = Collections.unmodifiableMap(copy);
+        } while (!snapshot.compareAndSet(current, next));
+    }
+
+    @NotNull
+    static Map<Class<?>, UserSerializer> snapshot() {
+        return snapshot.get();
+    }
+}
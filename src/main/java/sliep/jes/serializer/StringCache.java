@@ -0,0 +1,96 @@
+package sliep.jes.serializer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class StringCache {
+    private static final int STRIPES = 16;
+    @NotNull
+    private static final StringCache fallback = new StringCache(8192, 64);
+    @Nullable
+    private static volatile StringCache global;
+    @NotNull
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int maxLength;
+
+    public StringCache(int maxSize) {
+        this(maxSize, 32);
+    }
+
+    public StringCache(int maxSize, int maxLength) {
+        if (maxSize < STRIPES || maxLength < 0)
+            throw new IllegalArgumentException("Invalid max size " + maxSize + " or max length " + maxLength);
+        this.maxLength = maxLength;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(maxSize / STRIPES);
+    }
+
+    // Applied to keys and to string values up to maxLength by every decoder; null disables it
+    public static void setGlobal(@Nullable StringCache cache) {
+        global = cache;
+    }
+
+    @Nullable
+    public static StringCache getGlobal() {
+        return global;
+    }
+
+    // Cache used for fields annotated with @JesIntern
+    @NotNull
+    static StringCache fields() {
+        StringCache cache = global;
+        return cache != null ? cache : fallback;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    @NotNull
+    public String canonicalize(@NotNull String value) {
+        return value.length() > maxLength ? value : canonicalizeKey(value);
+    }
+
+    // Keys are canonicalized regardless of their length
+    @NotNull
+    String canonicalizeKey(@NotNull String key) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            String cached = stripe.putIfAbsent(key, key);
+            return cached != null ? cached : key;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes)
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes)
+            synchronized (stripe) {
+                stripe.clear();
+            }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, String> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > capacity;
+        }
+    }
+}
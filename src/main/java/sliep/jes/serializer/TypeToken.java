@@ -1,8 +1,103 @@
 package sliep.jes.serializer;
 
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Objects;
 
 public abstract class TypeToken<T> {
     public Type type = ((ParameterizedType) this.getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+
+    @NotNull
+    public static ParameterizedType parameterized(@NotNull Class<?> rawType, @NotNull Type... typeArguments) {
+        return new ParameterizedTypeImpl(rawType, typeArguments);
+    }
+
+    @NotNull
+    public static GenericArrayType arrayOf(@NotNull Type componentType) {
+        return new GenericArrayTypeImpl(componentType);
+    }
+
+    private static final class ParameterizedTypeImpl implements ParameterizedType {
+        @NotNull
+        private final Class<?> rawType;
+        @NotNull
+        private final Type[] typeArguments;
+
+        ParameterizedTypeImpl(@NotNull Class<?> rawType, @NotNull Type[] typeArguments) {
+            this.rawType = rawType;
+            this.typeArguments = typeArguments.clone();
+        }
+
+        @NotNull
+        @Override
+        public Type[] getActualTypeArguments() {
+            return typeArguments.clone();
+        }
+
+        @NotNull
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return rawType.getDeclaringClass();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ParameterizedType)) return false;
+            ParameterizedType other = (ParameterizedType) o;
+            return rawType.equals(other.getRawType()) && Objects.equals(getOwnerType(), other.getOwnerType()) &&
+                    Arrays.equals(typeArguments, other.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(typeArguments) ^ Objects.hashCode(getOwnerType()) ^ rawType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder(rawType.getTypeName()).append('<');
+            for (int i = 0; i < typeArguments.length; i++)
+                result.append(i == 0 ? "" : ", ").append(typeArguments[i].getTypeName());
+            return result.append('>').toString();
+        }
+    }
+
+    private static final class GenericArrayTypeImpl implements GenericArrayType {
+        @NotNull
+        private final Type componentType;
+
+        GenericArrayTypeImpl(@NotNull Type componentType) {
+            this.componentType = componentType;
+        }
+
+        @NotNull
+        @Override
+        public Type getGenericComponentType() {
+            return componentType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GenericArrayType && componentType.equals(((GenericArrayType) o).getGenericComponentType());
+        }
+
+        @Override
+        public int hashCode() {
+            return componentType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return componentType.getTypeName() + "[]";
+        }
+    }
 }
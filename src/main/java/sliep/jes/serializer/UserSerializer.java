@@ -8,7 +8,7 @@ import java.lang.reflect.Type;
 
 public abstract class UserSerializer<A extends Annotation, JV, OV> {
     public UserSerializer(Class<A> annotationType) {
-        Serializer.serializers.put(annotationType, this);
+        SerializerRegistry.register(annotationType, this);
     }
 
     @NotNull
@@ -6,10 +6,14 @@ import sliep.jes.serializer.UserSerializer;
 
 import java.lang.annotation.*;
 import java.lang.reflect.Type;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalField;
+import java.time.temporal.TemporalQueries;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Documented
 @Retention(RetentionPolicy.RUNTIME)
@@ -19,8 +23,8 @@ public @interface JesDate {
 
     String value();
 
-    class Provider extends UserSerializer<JesDate, String, Date> {
-        private static HashMap<String, SimpleDateFormat> formats = new HashMap<>();
+    class Provider extends UserSerializer<JesDate, String, Object> {
+        private static final ConcurrentHashMap<String, Format> formats = new ConcurrentHashMap<>();
 
         private Provider() {
             super(JesDate.class);
@@ -28,28 +32,87 @@ public @interface JesDate {
 
         @NotNull
         @Override
-        public String toJson(@NotNull JesDate annotation, @NotNull Date value) {
-            return get(annotation).format(value);
+        public String toJson(@NotNull JesDate annotation, @NotNull Object value) {
+            return format(annotation.value(), value);
         }
 
         @NotNull
         @Override
-        public Date fromJson(@NotNull JesDate annotation, @NotNull String value, @NotNull Type type) throws JSONException {
+        public Object fromJson(@NotNull JesDate annotation, @NotNull String value, @NotNull Type type) throws JSONException {
+            return parse(annotation.value(), value, type);
+        }
+
+        @NotNull
+        public static String format(@NotNull String pattern, @NotNull Object value) {
+            Format format = get(pattern);
+            if (value instanceof Date) return format.zoned.format(Instant.ofEpochMilli(((Date) value).getTime()));
+            if (value instanceof Instant) return format.zoned.format((Instant) value);
+            if (value instanceof TemporalAccessor) return format.formatter.format((TemporalAccessor) value);
+            throw new JSONException("Unsupported date type " + value.getClass().getName());
+        }
+
+        @NotNull
+        public static Object parse(@NotNull String pattern, @NotNull String value, @NotNull Type type) throws JSONException {
+            Format format = get(pattern);
             try {
-                return get(annotation).parse(value);
-            } catch (ParseException e) {
+                TemporalAccessor parsed = format.formatter.parse(value);
+                if (type == LocalDate.class) return date(parsed);
+                if (type == LocalTime.class) return time(parsed);
+                if (type == LocalDateTime.class) return LocalDateTime.of(date(parsed), time(parsed));
+                ZoneId zone = parsed.query(TemporalQueries.zone());
+                ZonedDateTime result = ZonedDateTime.of(date(parsed), time(parsed), zone == null ? format.zone : zone);
+                if (type == ZonedDateTime.class) return result;
+                if (type == OffsetDateTime.class) return result.toOffsetDateTime();
+                if (type == Instant.class) return result.toInstant();
+                return new Date(result.toInstant().toEpochMilli());
+            } catch (DateTimeException e) {
                 throw new JSONException(e);
             }
         }
 
         @NotNull
-        private static SimpleDateFormat get(@NotNull JesDate annotation) {
-            String format = annotation.value();
-            SimpleDateFormat result = formats.get(format);
+        private static LocalDate date(@NotNull TemporalAccessor parsed) {
+            LocalDate date = parsed.query(TemporalQueries.localDate());
+            if (date != null) return date;
+            return LocalDate.of(field(parsed, ChronoField.YEAR, 1970), field(parsed, ChronoField.MONTH_OF_YEAR, 1),
+                    field(parsed, ChronoField.DAY_OF_MONTH, 1));
+        }
+
+        @NotNull
+        private static LocalTime time(@NotNull TemporalAccessor parsed) {
+            LocalTime time = parsed.query(TemporalQueries.localTime());
+            if (time != null) return time;
+            return LocalTime.of(field(parsed, ChronoField.HOUR_OF_DAY, field(parsed, ChronoField.HOUR_OF_AMPM, 0)),
+                    field(parsed, ChronoField.MINUTE_OF_HOUR, 0), field(parsed, ChronoField.SECOND_OF_MINUTE, 0),
+                    field(parsed, ChronoField.NANO_OF_SECOND, 0));
+        }
+
+        private static int field(@NotNull TemporalAccessor parsed, @NotNull TemporalField field, int fallback) {
+            return parsed.isSupported(field) ? parsed.get(field) : fallback;
+        }
+
+        @NotNull
+        private static Format get(@NotNull String pattern) {
+            Format result = formats.get(pattern);
             if (result != null) return result;
-            result = new SimpleDateFormat(format);
-            formats.put(format, result);
-            return result;
+            result = new Format(pattern);
+            Format previous = formats.putIfAbsent(pattern, result);
+            return previous != null ? previous : result;
+        }
+
+        private static final class Format {
+            @NotNull
+            final DateTimeFormatter formatter;
+            @NotNull
+            final DateTimeFormatter zoned;
+            @NotNull
+            final ZoneId zone;
+
+            Format(@NotNull String pattern) {
+                formatter = DateTimeFormatter.ofPattern(pattern);
+                zone = ZoneId.systemDefault();
+                zoned = formatter.withZone(zone);
+            }
         }
     }
 }
@@ -0,0 +1,9 @@
+package sliep.jes.serializer.annotations;
+
+import java.lang.annotation.*;
+
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface JesIntern {
+}
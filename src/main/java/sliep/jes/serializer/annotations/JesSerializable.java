@@ -0,0 +1,11 @@
+package sliep.jes.serializer.annotations;
+
+import java.lang.annotation.*;
+
+// Generates a JesCodec for the class at compile time: needs the 'processor' artifact (sliep.jes:serializer:<version>:processor)
+// and this jar on the annotationProcessor/kapt path
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JesSerializable {
+}
@@ -0,0 +1,12 @@
+package sliep.jes.serializer.di;
+
+import org.jetbrains.annotations.NotNull;
+
+// Thrown by resolve when a singleton (directly or through other providers) depends on itself
+public final class CircularDependencyException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    CircularDependencyException(@NotNull String message) {
+        super(message);
+    }
+}
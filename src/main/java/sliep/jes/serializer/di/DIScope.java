@@ -0,0 +1,104 @@
+package sliep.jes.serializer.di;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Lifecycle of the instances of a provider annotated with @Scope: one scope object is created per provider and module
+public interface DIScope {
+    // provider has type (Object requester)Object and creates a new instance on every call
+    @NotNull
+    Object get(@NotNull Object requester, @NotNull MethodHandle provider) throws Throwable;
+
+    // Creation runs outside the monitor: a thread about to wait on an instance being created by a thread that
+    // (transitively) waits on it fails with a circular dependency instead of deadlocking
+    final class Singleton implements DIScope {
+        @NotNull
+        private static final ConcurrentHashMap<Thread, Singleton> waiting = new ConcurrentHashMap<>();
+        private volatile Object instance;
+        @Nullable
+        private volatile Thread owner;
+
+        @NotNull
+        @Override
+        public Object get(@NotNull Object requester, @NotNull MethodHandle provider) throws Throwable {
+            Object instance = this.instance;
+            return instance != null ? instance : create(requester, provider);
+        }
+
+        @NotNull
+        private Object create(@NotNull Object requester, @NotNull MethodHandle provider) throws Throwable {
+            Thread current = Thread.currentThread();
+            synchronized (this) {
+                while (true) {
+                    Object instance = this.instance;
+                    if (instance != null) return instance;
+                    Thread owner = this.owner;
+                    if (owner == null) break;
+                    waiting.put(current, this);
+                    try {
+                        if (owner == current || waitsFor(owner, current))
+                            throw new CircularDependencyException("Circular dependency while creating scoped instance in " + current.getName());
+                        wait();
+                    } finally {
+                        waiting.remove(current);
+                    }
+                }
+                owner = current;
+            }
+            Object instance = null;
+            try {
+                instance = (Object) provider.invokeExact(requester);
+                return instance;
+            } finally {
+                synchronized (this) {
+                    this.instance = instance;
+                    owner = null;
+                    notifyAll();
+                }
+            }
+        }
+
+        private static boolean waitsFor(@NotNull Thread owner, @NotNull Thread current) {
+            for (int i = waiting.size(); i >= 0; i--) {
+                Singleton awaited = waiting.get(owner);
+                if (awaited == null || (owner = awaited.owner) == null) return false;
+                if (owner == current) return true;
+            }
+            return false;
+        }
+    }
+
+    // One Singleton per requester class: creation for a class only waits on (and cycle-checks against) that class
+    final class PerRequester implements DIScope {
+        @NotNull
+        private final ConcurrentHashMap<Class<?>, Singleton> instances = new ConcurrentHashMap<>();
+
+        @NotNull
+        @Override
+        public Object get(@NotNull Object requester, @NotNull MethodHandle provider) throws Throwable {
+            Class<?> type = requester.getClass();
+            Singleton instance = instances.get(type);
+            if (instance == null) {
+                Singleton existing = instances.putIfAbsent(type, instance = new Singleton());
+                if (existing != null) instance = existing;
+            }
+            return instance.get(requester, provider);
+        }
+    }
+
+    final class PerThread implements DIScope {
+        @NotNull
+        private final ThreadLocal<Object> instance = new ThreadLocal<>();
+
+        @NotNull
+        @Override
+        public Object get(@NotNull Object requester, @NotNull MethodHandle provider) throws Throwable {
+            Object instance = this.instance.get();
+            if (instance == null) this.instance.set(instance = (Object) provider.invokeExact(requester));
+            return instance;
+        }
+    }
+}
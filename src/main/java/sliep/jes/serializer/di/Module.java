@@ -3,17 +3,24 @@ package sliep.jes.serializer.di;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class Module implements DIModule {
     @NotNull
     private final DependencyProvider[] methods;
     @NotNull
     private final String name;
+    // requester class -> dependency -> winning provider, as a handle bound to this module taking the requester
+    @NotNull
+    private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, MethodHandle>> resolved = new ConcurrentHashMap<>();
 
     public Module() {
         Class<? extends Module> module = this.getClass();
@@ -28,7 +35,7 @@ public abstract class Module implements DIModule {
             methods[i++] = new DependencyProvider(method, parameters);
         }
         Arrays.sort(methods, 0, i, ProviderComparator.INSTANCE);
-        if (methods.length < i) {
+        if (i < methods.length) {
             this.methods = new DependencyProvider[i];
             System.arraycopy(methods, 0, this.methods, 0, i);
         } else this.methods = methods;
@@ -36,29 +43,121 @@ public abstract class Module implements DIModule {
 
     @NotNull
     public final Object resolve(@NotNull Object requester, @NotNull Class<?> dependency) throws Throwable {
+        Class<?> requesterClass = requester.getClass();
+        ConcurrentHashMap<Class<?>, MethodHandle> dependencies = resolved.get(requesterClass);
+        if (dependencies == null) {
+            dependencies = new ConcurrentHashMap<>();
+            ConcurrentHashMap<Class<?>, MethodHandle> existing = resolved.putIfAbsent(requesterClass, dependencies);
+            if (existing != null) dependencies = existing;
+        }
+        MethodHandle handle = dependencies.get(dependency);
+        if (handle == null) {
+            handle = provider(requesterClass, dependency).handle(this);
+            MethodHandle existing = dependencies.putIfAbsent(dependency, handle);
+            if (existing != null) handle = existing;
+        }
+        return (Object) handle.invokeExact(requester);
+    }
+
+    @NotNull
+    private DependencyProvider provider(@NotNull Class<?> requester, @NotNull Class<?> dependency) {
+        DependencyProvider provider = find(requester, dependency);
+        if (provider == null)
+            throw new IllegalStateException("[" + name + "] Failed to resolve dependency '" + dependency.getName() + "' requested by " + requester);
+        return provider;
+    }
+
+    @Nullable
+    DependencyProvider find(@NotNull Class<?> requester, @NotNull Class<?> dependency) {
         for (DependencyProvider method : methods)
-            if (dependency.isAssignableFrom(method.dependency)) try {
-                if (method.requester == null) return method.method.invoke(this);
-                if (method.requester.isInstance(requester)) return method.method.invoke(this, requester);
-            } catch (InvocationTargetException e) {
-                throw e.getTargetException();
-            }
-        throw new IllegalStateException("[" + name + "] Failed to resolve dependency '" + dependency.getName() + "' requested by " + requester.getClass());
+            if (dependency.isAssignableFrom(method.dependency) && (method.requester == null || method.requester.isAssignableFrom(requester)))
+                return method;
+        return null;
     }
 
-    private final static class DependencyProvider {
+    @NotNull
+    DependencyProvider[] providers() {
+        return methods;
+    }
+
+    @NotNull
+    String name() {
+        return name;
+    }
+
+    final static class DependencyProvider {
+        @NotNull
+        private static final MethodHandle SCOPE_GET;
+
+        static {
+            try {
+                SCOPE_GET = MethodHandles.publicLookup().findVirtual(DIScope.class, "get", MethodType.methodType(Object.class, Object.class, MethodHandle.class));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
         @NotNull
         final Method method;
         @NotNull
         final Class<?> dependency;
         @Nullable
         final Class<?> requester;
+        @Nullable
+        final DIScope scope;
+        final int dependencyDepth;
+        final int requesterDepth;
+        @Nullable
+        private volatile MethodHandle handle;
 
         DependencyProvider(@NotNull Method method, @NotNull Class<?>[] parameters) {
             method.setAccessible(true);
             this.method = method;
             this.dependency = method.getReturnType();
             this.requester = parameters.length == 0 ? null : parameters[0];
+            Scope scope = method.getAnnotation(Scope.class);
+            try {
+                this.scope = scope == null ? null : scope.value().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to create scope " + scope.value().getName() + " for provider " + method.getName(), e);
+            }
+            this.dependencyDepth = depth(dependency);
+            this.requesterDepth = requester == null ? -1 : depth(requester);
+        }
+
+        // Providers belong to a single module, so the bound handle is shared by every requester
+        @NotNull
+        MethodHandle handle(@NotNull Module module) {
+            MethodHandle handle = this.handle;
+            if (handle == null) this.handle = handle = bind(module);
+            return handle;
+        }
+
+        @NotNull
+        private MethodHandle bind(@NotNull Module module) {
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.lookup().unreflect(method).bindTo(module);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Provider " + this + " is not accessible", e);
+            }
+            if (requester == null) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            handle = handle.asType(MethodType.methodType(Object.class, Object.class));
+            if (scope == null) return handle;
+            return MethodHandles.insertArguments(SCOPE_GET.bindTo(scope), 1, handle);
+        }
+
+        // Number of distinct supertypes: a proper supertype always has fewer than its subtypes
+        private static int depth(@NotNull Class<?> type) {
+            int depth = type.isInterface() ? 1 : 0;
+            for (Class<?> t = type; t != null; t = t.getSuperclass()) depth++;
+            return depth + interfaces(type, new HashSet<>());
+        }
+
+        private static int interfaces(@NotNull Class<?> type, @NotNull HashSet<Class<?>> seen) {
+            for (Class<?> t = type; t != null; t = t.getSuperclass())
+                for (Class<?> i : t.getInterfaces()) if (seen.add(i)) interfaces(i, seen);
+            return seen.size();
         }
 
         @Override
@@ -73,18 +172,15 @@ public abstract class Module implements DIModule {
         private ProviderComparator() {
         }
 
+        // Total order: supertypes before subtypes for the dependency, then the most specific requester first, then by name
         @Override
         public int compare(DependencyProvider m1, DependencyProvider m2) {
             if (m1.dependency != m2.dependency)
-                if (m1.dependency.isAssignableFrom(m2.dependency)) return -1;
-                else if (m2.dependency.isAssignableFrom(m1.dependency)) return 1;
-                else return 0;
+                if (m1.dependencyDepth != m2.dependencyDepth) return Integer.compare(m1.dependencyDepth, m2.dependencyDepth);
+                else return m1.dependency.getName().compareTo(m2.dependency.getName());
             else if (m1.requester != m2.requester)
-                if (m2.requester == null) return -1;
-                else if (m1.requester == null) return 1;
-                else if (m2.requester.isAssignableFrom(m1.requester)) return -1;
-                else if (m1.requester.isAssignableFrom(m2.requester)) return 1;
-                else return 0;
+                if (m1.requesterDepth != m2.requesterDepth) return Integer.compare(m2.requesterDepth, m1.requesterDepth);
+                else return m1.requester.getName().compareTo(m2.requester.getName());
             else throw new IllegalStateException("Duplicate provider declaration [" + m1 + "] and [" + m2 + "]");
         }
     }
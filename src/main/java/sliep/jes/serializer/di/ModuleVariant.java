@@ -5,32 +5,53 @@ import org.jetbrains.annotations.NotNull;
 import java.util.HashMap;
 
 public abstract class ModuleVariant<Key, AM extends DIModule> implements DIModule {
+    // Only read under its own monitor: subclasses registering variants after construction can synchronize on it
     @NotNull
     protected final HashMap<Key, AM> variants = new HashMap<>();
+    // Variant and delegate are published together so a resolve never sees one without the other
     @NotNull
-    private AM delegate;
-    @NotNull
-    private Key variant;
+    private volatile Snapshot<Key, AM> current;
 
     protected ModuleVariant() {
-        variant = initializeVariants();
-        delegate = variants.get(variant);
+        Key variant = initializeVariants();
+        current = new Snapshot<>(variant, delegate(variant));
     }
 
     @NotNull
     public final Object resolve(@NotNull Object requester, @NotNull Class<?> dependency) throws Throwable {
-        return delegate.resolve(requester, dependency);
+        return current.delegate.resolve(requester, dependency);
     }
 
     @NotNull
     public Key getVariant() {
-        return variant;
+        return current.variant;
     }
 
     public final void setVariant(@NotNull Key variant) {
-        this.variant = variant;
-        this.delegate = variants.get(variant);
+        current = new Snapshot<>(variant, delegate(variant));
+    }
+
+    @NotNull
+    private AM delegate(@NotNull Key variant) {
+        AM delegate;
+        synchronized (variants) {
+            delegate = variants.get(variant);
+        }
+        if (delegate == null) throw new IllegalArgumentException("No module registered for variant " + variant);
+        return delegate;
     }
 
     protected abstract Key initializeVariants();
+
+    private static final class Snapshot<Key, AM> {
+        @NotNull
+        final Key variant;
+        @NotNull
+        final AM delegate;
+
+        Snapshot(@NotNull Key variant, @NotNull AM delegate) {
+            this.variant = variant;
+            this.delegate = delegate;
+        }
+    }
 }
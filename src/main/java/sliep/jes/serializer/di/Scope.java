@@ -0,0 +1,10 @@
+package sliep.jes.serializer.di;
+
+import java.lang.annotation.*;
+
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Scope {
+    Class<? extends DIScope> value();
+}
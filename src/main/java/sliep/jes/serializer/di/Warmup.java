@@ -0,0 +1,201 @@
+package sliep.jes.serializer.di;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Validates every provider of a Module/ModuleVariant tree and creates its singletons ahead of the first resolve
+public final class Warmup {
+    private Warmup() {
+    }
+
+    // Static checks only: ambiguous requesters within a module and providers missing from some variants
+    @NotNull
+    public static Report validate(@NotNull DIModule root) {
+        ArrayList<Problem> problems = new ArrayList<>();
+        modules(root, problems);
+        return new Report(problems, new LinkedHashMap<>());
+    }
+
+    @NotNull
+    public static Report warmUp(@NotNull DIModule root) {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return warmUp(root, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Binds every provider and creates requester-less singletons on executor. A singleton resolving another one waits
+    // for it (or creates it) so dependency order holds whatever the scheduling: timings include that waiting
+    @NotNull
+    public static Report warmUp(@NotNull DIModule root, @NotNull Executor executor) {
+        ArrayList<Problem> problems = new ArrayList<>();
+        List<Module> modules = modules(root, problems);
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<CompletableFuture<Object>> tasks = new ArrayList<>();
+        for (Module module : modules)
+            for (Module.DependencyProvider provider : module.providers()) {
+                names.add(module.name() + "." + provider);
+                tasks.add(CompletableFuture.supplyAsync(() -> warmUp(module, provider), executor));
+            }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        LinkedHashMap<String, Duration> timings = new LinkedHashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Object result = tasks.get(i).join();
+            if (result instanceof Duration) timings.put(names.get(i), (Duration) result);
+            else problems.add((Problem) result);
+        }
+        return new Report(problems, timings);
+    }
+
+    @NotNull
+    private static Object warmUp(@NotNull Module module, @NotNull Module.DependencyProvider provider) {
+        long start = System.nanoTime();
+        try {
+            MethodHandle handle = provider.handle(module);
+            if (provider.scope instanceof DIScope.Singleton && provider.requester == null) {
+                Object instance = (Object) handle.invokeExact((Object) module);
+            }
+        } catch (CircularDependencyException e) {
+            return new Problem(Problem.Kind.CYCLE, "[" + module.name() + "] " + provider + ": " + e.getMessage(), e);
+        } catch (Throwable e) {
+            return new Problem(Problem.Kind.FAILED, "[" + module.name() + "] " + provider + " failed: " + e, e);
+        }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    @NotNull
+    private static List<Module> modules(@NotNull DIModule root, @NotNull List<Problem> problems) {
+        ArrayList<Module> modules = new ArrayList<>();
+        collect(root, Collections.newSetFromMap(new IdentityHashMap<>()), modules, problems);
+        for (Module module : modules) ambiguous(module, problems);
+        return modules;
+    }
+
+    private static void collect(@NotNull DIModule module, @NotNull Set<DIModule> seen, @NotNull List<Module> modules, @NotNull List<Problem> problems) {
+        if (!seen.add(module)) return;
+        if (module instanceof Module) modules.add((Module) module);
+        else if (module instanceof ModuleVariant) {
+            HashMap<?, ? extends DIModule> registered = ((ModuleVariant<?, ?>) module).variants;
+            ArrayList<DIModule> variants;
+            synchronized (registered) {
+                variants = new ArrayList<>(registered.values());
+            }
+            for (DIModule variant : variants) collect(variant, seen, modules, problems);
+            // A provider missing from a variant would only fail after switching to it
+            for (DIModule a : variants)
+                for (DIModule b : variants)
+                    if (a != b && a instanceof Module && b instanceof Module) missing((Module) a, (Module) b, problems);
+        }
+    }
+
+    private static void missing(@NotNull Module module, @NotNull Module variant, @NotNull List<Problem> problems) {
+        for (Module.DependencyProvider provider : module.providers()) {
+            Class<?> requester = provider.requester == null ? Object.class : provider.requester;
+            if (variant.find(requester, provider.dependency) == null)
+                problems.add(new Problem(Problem.Kind.MISSING, "[" + variant.name() + "] No provider for '" + provider.dependency.getName()
+                        + "' requested by " + requester.getName() + ", provided by " + module.name(), null));
+        }
+    }
+
+    // Unrelated requester types of the same dependency: a requester implementing both gets whichever provider sorts first
+    private static void ambiguous(@NotNull Module module, @NotNull List<Problem> problems) {
+        Module.DependencyProvider[] providers = module.providers();
+        for (int i = 0; i < providers.length; i++)
+            for (int j = i + 1; j < providers.length; j++) {
+                Module.DependencyProvider a = providers[i], b = providers[j];
+                if (a.dependency != b.dependency || a.requester == null || b.requester == null) continue;
+                if (a.requester.isAssignableFrom(b.requester) || b.requester.isAssignableFrom(a.requester)) continue;
+                if (!a.requester.isInterface() && !b.requester.isInterface()) continue;
+                problems.add(new Problem(Problem.Kind.AMBIGUOUS, "[" + module.name() + "] Requesters of both " + a.requester.getName()
+                        + " and " + b.requester.getName() + " get [" + a + "] over [" + b + "]", null));
+            }
+    }
+
+    public static final class Report {
+        @NotNull
+        private final List<Problem> problems;
+        @NotNull
+        private final Map<String, Duration> timings;
+
+        Report(@NotNull List<Problem> problems, @NotNull Map<String, Duration> timings) {
+            this.problems = Collections.unmodifiableList(problems);
+            this.timings = Collections.unmodifiableMap(timings);
+        }
+
+        @NotNull
+        public List<Problem> getProblems() {
+            return problems;
+        }
+
+        // Provider (module.method(requester) => dependency) -> time to bind it and create its singleton
+        @NotNull
+        public Map<String, Duration> getTimings() {
+            return timings;
+        }
+
+        public boolean isValid() {
+            return problems.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (Problem problem : problems) builder.append(problem).append('\n');
+            for (Map.Entry<String, Duration> timing : timings.entrySet())
+                builder.append(timing.getKey()).append(": ").append(timing.getValue().toNanos() / 1000).append("us\n");
+            return builder.toString();
+        }
+    }
+
+    public static final class Problem {
+        public enum Kind {
+            MISSING,
+            AMBIGUOUS,
+            CYCLE,
+            FAILED
+        }
+
+        @NotNull
+        private final Kind kind;
+        @NotNull
+        private final String message;
+        @Nullable
+        private final Throwable cause;
+
+        Problem(@NotNull Kind kind, @NotNull String message, @Nullable Throwable cause) {
+            this.kind = kind;
+            this.message = message;
+            this.cause = cause;
+        }
+
+        @NotNull
+        public Kind getKind() {
+            return kind;
+        }
+
+        @NotNull
+        public String getMessage() {
+            return message;
+        }
+
+        @Nullable
+        public Throwable getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return kind + ": " + message;
+        }
+    }
+}
@@ -31,12 +31,8 @@ inline fun <T> suppress(vararg throwable: KClass<out Throwable>, block: () -> T)
 inline infix fun Int.includes(flag: Int) = this and flag == flag
 inline infix fun Int.excludes(flag: Int) = this and flag == 0
 
-infix fun <T : ValueEnum> Class<*>.enumId(id: Int): T {
-    for (value in (this as Class<T>).enumConstants) if (value.value == id) return value
-    throw IllegalArgumentException("No enum value for: $id in $this")
-}
+infix fun <T : ValueEnum> Class<*>.enumId(id: Int): T =
+    EnumTable.of(this).byValue(id) as T? ?: throw IllegalArgumentException("No enum value for: $id in $this")
 
-infix fun <T : Enum<*>> Class<*>.enumName(name: String): T {
-    for (value in (this as Class<T>).enumConstants) if ((value as Enum<*>).name == name) return value
-    throw IllegalArgumentException("No enum name for: $name in $this")
-}
+infix fun <T : Enum<*>> Class<*>.enumName(name: String): T =
+    EnumTable.of(this).byName(name) as T? ?: throw IllegalArgumentException("No enum name for: $name in $this")
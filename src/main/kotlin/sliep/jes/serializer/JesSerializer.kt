@@ -7,6 +7,11 @@ import org.json.JSONObject
 import sliep.jes.serializer.Deserializer.objectValueArray
 import sliep.jes.serializer.Deserializer.objectValueObject
 import sliep.jes.serializer.Serializer.jsonValue
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.Reader
+import java.nio.ByteBuffer
+import java.nio.file.Path
 
 inline fun <reified T> JSONObject.fromJson(target: T? = null): T =
     objectValueObject(this, T::class.java, target) as T
@@ -26,20 +31,61 @@ inline fun <reified T> JSONObject.fromJsonType(target: T? = null): T =
 inline fun <reified T> JSONArray.fromJsonType(target: T? = null): T =
     objectValueArray(this, object : TypeToken<T>() {}.type, target) as T
 
+inline fun <reified T> JSONArray.fromJson(options: ParallelOptions, target: T? = null): T =
+    objectValueArray(this, T::class.java, target, options) as T
+
+inline fun <reified T> JSONArray.fromJsonType(options: ParallelOptions, target: T? = null): T =
+    objectValueArray(this, object : TypeToken<T>() {}.type, target, options) as T
+
+inline fun <reified T> Reader.fromJson(): T = Deserializer.read(this, T::class.java) as T
+
+inline fun <reified T> InputStream.fromJson(): T = Deserializer.read(this, T::class.java) as T
+
+inline fun <reified T> Reader.fromJsonType(): T = Deserializer.read(this, object : TypeToken<T>() {}.type) as T
+
+inline fun <reified T> InputStream.fromJsonType(): T = Deserializer.read(this, object : TypeToken<T>() {}.type) as T
+
+inline fun <reified T> Path.fromJson(): T = Deserializer.read(this, T::class.java) as T
+
+inline fun <reified T> Path.fromJsonType(): T = Deserializer.read(this, object : TypeToken<T>() {}.type) as T
+
+inline fun <reified T> Reader.jsonSequence(): Sequence<T> = Deserializer.iterator<T>(this, T::class.java).asSequence()
+
+inline fun <reified T> InputStream.jsonSequence(): Sequence<T> = Deserializer.iterator<T>(this, T::class.java).asSequence()
+
+inline fun <reified T> Reader.jsonSequenceType(): Sequence<T> =
+    Deserializer.iterator<T>(this, object : TypeToken<T>() {}.type).asSequence()
+
+inline fun <reified T> InputStream.jsonSequenceType(): Sequence<T> =
+    Deserializer.iterator<T>(this, object : TypeToken<T>() {}.type).asSequence()
+
+inline fun <reified T> Reader.jsonLines(options: ParallelOptions? = null): Sequence<T> =
+    (if (options == null) JsonLines.iterator<T>(this, T::class.java)
+    else JsonLines.iterator<T>(this, T::class.java, options)).asSequence()
+
+inline fun <reified T> InputStream.jsonLines(options: ParallelOptions? = null): Sequence<T> = reader().jsonLines(options)
+
+inline fun Iterable<*>.writeJsonLines(out: OutputStream) = JsonLines.write(this, out)
+inline fun Sequence<*>.writeJsonLines(out: OutputStream) = JsonLines.write(asIterable(), out)
+
 inline fun Any.toJson(): JSONObject = jsonValue(this) as JSONObject
 inline fun Array<*>.toJson(): JSONArray = jsonValue(this) as JSONArray
 inline fun Iterable<*>.toJson(): JSONArray = jsonValue(this) as JSONArray
+inline fun Array<*>.toJson(options: ParallelOptions): JSONArray = jsonValue(this, options) as JSONArray
+inline fun Iterable<*>.toJson(options: ParallelOptions): JSONArray = jsonValue(this, options) as JSONArray
+
+inline fun Any.writeJson(out: Appendable) = Serializer.write(this, out)
+inline fun Any.writeJson(out: OutputStream) = Serializer.write(this, out)
+inline fun Any.writeJson(out: ByteBuffer): ByteBuffer = Serializer.write(this, out)
+inline fun Any.writeJson(out: ByteBufferChain) = Serializer.write(this, out)
+inline fun Any.toJsonString(): String = StringBuilder().also { Serializer.write(this, it) }.toString()
+
+inline fun Any.toBinary(): ByteArray = BinarySerializer.encode(this)
+inline fun <reified T> ByteArray.fromBinary(): T = BinaryDeserializer.decode(this, T::class.java) as T
+inline fun <reified T> ByteArray.fromBinaryType(): T = BinaryDeserializer.decode(this, object : TypeToken<T>() {}.type) as T
+inline fun <reified T> ByteBuffer.fromBinary(): T = BinaryDeserializer.decode(this, T::class.java) as T
+inline fun <reified T> ByteBuffer.fromBinaryType(): T = BinaryDeserializer.decode(this, object : TypeToken<T>() {}.type) as T
 
 inline fun <reified T : Any> JSONArray.toTypedArray(): Array<T> = Array(length()) { i -> opt(i) as T }
 
-fun String.tryAsJSON(): Any? {
-    try {
-        return JSONObject(this)
-    } catch (ignored: Throwable) {
-    }
-    try {
-        return JSONArray(this)
-    } catch (ignored: Throwable) {
-    }
-    return null
-}
+fun String.tryAsJSON(): Any? = Deserializer.parseJson(this)
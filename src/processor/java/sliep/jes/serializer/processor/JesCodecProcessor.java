@@ -0,0 +1,616 @@
+package sliep.jes.serializer.processor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import sliep.jes.serializer.annotations.JesDate;
+import sliep.jes.serializer.annotations.JesIntern;
+import sliep.jes.serializer.annotations.JesSerializable;
+import sliep.jes.serializer.annotations.JsonName;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.*;
+
+@SupportedAnnotationTypes("sliep.jes.serializer.annotations.JesSerializable")
+public final class JesCodecProcessor extends AbstractProcessor {
+    private static final String SERVICE = "META-INF/services/sliep.jes.serializer.JesCodec";
+    private final LinkedHashSet<String> codecs = new LinkedHashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(@NotNull Set<? extends TypeElement> annotations, @NotNull RoundEnvironment round) {
+        for (Element element : round.getElementsAnnotatedWith(JesSerializable.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@JesSerializable is only supported on classes");
+                continue;
+            }
+            try {
+                String codec = new Generator((TypeElement) element).generate();
+                if (codec != null) codecs.add(codec);
+            } catch (IOException e) {
+                error(element, "Failed to write codec: " + e.getMessage());
+            }
+        }
+        if (round.processingOver() && !codecs.isEmpty()) try {
+            LinkedHashSet<String> services = existingServices();
+            services.addAll(codecs);
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE);
+            try (Writer out = file.openWriter()) {
+                for (String codec : services) out.write(codec + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + SERVICE + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    // Codecs listed by an earlier compilation into the same output: an incremental build only processes the changed
+    // classes, so the service file keeps the others (a codec since deleted is skipped by CodecRegistry)
+    @NotNull
+    private LinkedHashSet<String> existingServices() {
+        LinkedHashSet<String> services = new LinkedHashSet<>();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE);
+            try (BufferedReader in = new BufferedReader(file.openReader(true))) {
+                for (String line; (line = in.readLine()) != null; ) {
+                    int comment = line.indexOf('#');
+                    String service = (comment < 0 ? line : line.substring(0, comment)).trim();
+                    if (!service.isEmpty()) services.add(service);
+                }
+            }
+        } catch (IOException | IllegalArgumentException ignored) {
+            // First compilation into this output
+        }
+        return services;
+    }
+
+    private void error(@NotNull Element element, @NotNull String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private final class Generator {
+        @NotNull
+        private final TypeElement type;
+        @NotNull
+        private final String packageName;
+        @NotNull
+        private final String typeName;
+        @NotNull
+        private final String codecName;
+        private final ArrayList<Property> properties = new ArrayList<>();
+        private final ArrayList<String> types = new ArrayList<>();
+        private final ArrayList<String> helpers = new ArrayList<>();
+        private final ArrayList<String> enums = new ArrayList<>();
+        // Set by construction(): fields are assigned on a no-arg instance rather than passed to a full constructor
+        private boolean setters;
+        // Set by construction() for a full constructor: parameters that can't take a missing member's null or zero
+        private boolean[] required;
+        private boolean missingHelper;
+
+        Generator(@NotNull TypeElement type) {
+            this.type = type;
+            packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            typeName = type.getQualifiedName().toString();
+            String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+            codecName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + "_JesCodec";
+        }
+
+        @Nullable
+        String generate() throws IOException {
+            if (type.getModifiers().contains(Modifier.ABSTRACT) || !accessible(type)) {
+                error(type, "@JesSerializable class must be concrete and accessible from its package");
+                return null;
+            }
+            for (Element e = type; e.getKind() == ElementKind.CLASS; e = e.getEnclosingElement())
+                if (e != type && !e.getModifiers().contains(Modifier.STATIC) && e.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+                    error(type, "@JesSerializable class must not be an inner class");
+                    return null;
+                }
+            HashSet<String> names = new HashSet<>();
+            for (TypeElement t = type; t != null; t = superclass(t))
+                for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                    Set<Modifier> modifiers = field.getModifiers();
+                    if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) continue;
+                    String annotation = foreignAnnotation(field);
+                    if (annotation != null) {
+                        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Field annotation @" + annotation +
+                                " may have a registered UserSerializer, " + typeName + " will be bound reflectively", field);
+                        return null;
+                    }
+                    if (field.getAnnotation(JesIntern.class) != null) {
+                        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Field uses @JesIntern, " + typeName + " will be bound reflectively", field);
+                        return null;
+                    }
+                    Property property = new Property(field);
+                    if (names.add(property.name)) properties.add(property);
+                }
+            String construction = construction();
+            if (construction == null) return null;
+            String qualifiedName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+            String writing = writing(), reading = reading();
+            try (Writer out = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+                out.write(source(construction, writing, reading));
+            }
+            return qualifiedName;
+        }
+
+        @NotNull
+        private String source(@NotNull String construction, @NotNull String writing, @NotNull String reading) {
+            StringBuilder out = new StringBuilder();
+            if (!packageName.isEmpty()) out.append("package ").append(packageName).append(";\n\n");
+            out.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            out.append("public final class ").append(codecName).append(" implements sliep.jes.serializer.JesCodec<").append(typeName).append("> {\n");
+            for (int i = 0; i < types.size(); i++)
+                out.append("    private static final java.lang.reflect.Type TYPE_").append(i).append(" = ").append(types.get(i)).append(";\n");
+            for (int i = 0; i < enums.size(); i++)
+                out.append("    private static final sliep.jes.serializer.EnumTable ENUM_").append(i)
+                        .append(" = sliep.jes.serializer.EnumTable.of(").append(enums.get(i)).append(".class);\n");
+            out.append("    private static final sliep.jes.serializer.NameTable NAMES = sliep.jes.serializer.NameTable.of(");
+            for (int i = 0; i < properties.size(); i++) out.append(i == 0 ? "" : ", ").append(literal(properties.get(i).name));
+            out.append(");\n\n");
+            out.append("    @Override\n    public Class<").append(typeName).append("> type() {\n");
+            out.append("        return ").append(typeName).append(".class;\n    }\n\n");
+            out.append("    @Override\n    public org.json.JSONObject toJson(").append(typeName).append(" value) {\n");
+            out.append("        org.json.JSONObject result = new org.json.JSONObject();\n");
+            for (Property property : properties) property.encode(out);
+            out.append("        return result;\n    }\n\n");
+            out.append("    @Override\n    public ").append(typeName).append(" fromJson(org.json.JSONObject json) {\n");
+            out.append(construction);
+            out.append("    }\n\n");
+            out.append("    @Override\n    public void write(").append(typeName).append(" value, sliep.jes.serializer.JsonWriter out) throws java.io.IOException {\n");
+            out.append(writing).append("    }\n\n");
+            out.append("    @Override\n    public ").append(typeName).append(" read(sliep.jes.serializer.JsonReader in) throws java.io.IOException {\n");
+            out.append(reading).append("    }\n\n");
+            out.append("    @Override\n    public void write(").append(typeName).append(" value, sliep.jes.serializer.BinaryWriter out) {\n");
+            out.append(writing).append("    }\n\n");
+            out.append("    @Override\n    public ").append(typeName).append(" read(sliep.jes.serializer.BinaryReader in) {\n");
+            out.append(reading).append("    }\n");
+            for (String helper : helpers) out.append('\n').append(helper);
+            out.append("}\n");
+            return out.toString();
+        }
+
+        @Nullable
+        private String construction() {
+            StringBuilder out = new StringBuilder();
+            ExecutableElement empty = null, full = null;
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (!accessible(constructor)) continue;
+                List<? extends VariableElement> parameters = constructor.getParameters();
+                if (parameters.isEmpty()) empty = constructor;
+                else if (parameters.size() == properties.size() && matches(parameters)) full = constructor;
+            }
+            boolean writable = true;
+            for (Property property : properties) writable &= property.writer() != null;
+            if (empty != null && writable) {
+                setters = true;
+                out.append("        ").append(typeName).append(" result = new ").append(typeName).append("();\n");
+                for (Property property : properties) {
+                    out.append("        if (!json.isNull(").append(literal(property.name)).append(")) ");
+                    out.append(String.format(property.writer(), property.decode())).append(";\n");
+                }
+                out.append("        return result;\n");
+                return out.toString();
+            }
+            if (full != null) {
+                required = new boolean[properties.size()];
+                for (int i = 0; i < required.length; i++) {
+                    required[i] = required(full.getParameters().get(i));
+                    if (required[i]) out.append("        if (json.isNull(").append(literal(properties.get(i).name)).append(")) throw ")
+                            .append(missing()).append('(').append(literal(properties.get(i).name)).append(");\n");
+                }
+                out.append("        return new ").append(typeName).append('(');
+                for (int i = 0; i < properties.size(); i++)
+                    out.append(i == 0 ? "\n                " : ",\n                ").append(properties.get(i).decode());
+                out.append(");\n");
+                return out.toString();
+            }
+            error(type, "@JesSerializable class needs an accessible no-arg constructor with writable fields, or a constructor taking every field in declaration order");
+            return null;
+        }
+
+        // Same body for JsonWriter and BinaryWriter, whose codec APIs match
+        @NotNull
+        private String writing() {
+            StringBuilder out = new StringBuilder("        out.beginObject();\n");
+            for (Property property : properties) property.write(out);
+            return out.append("        out.endObject();\n").toString();
+        }
+
+        // Same body for JsonReader and BinaryReader: members are dispatched on their index in NAMES
+        @NotNull
+        private String reading() {
+            StringBuilder out = new StringBuilder();
+            if (setters)
+                out.append("        ").append(typeName).append(" result = new ").append(typeName).append("();\n");
+            else for (int i = 0; i < properties.size(); i++) {
+                Property property = properties.get(i);
+                String initial = property.type.getKind() == TypeKind.BOOLEAN ? "false" : property.type.getKind().isPrimitive() ? "0" : "null";
+                out.append("        ").append(property.localType()).append(" v").append(i).append(" = ").append(initial).append(";\n");
+                if (required[i]) out.append("        boolean s").append(i).append(" = false;\n");
+            }
+            out.append("        if (in.beginObject()) do {\n            switch (in.nextName(NAMES)) {\n");
+            for (int i = 0; i < properties.size(); i++) {
+                Property property = properties.get(i);
+                String target = setters ? property.writer() : "v" + i + " = %s";
+                out.append("                case ").append(i).append(":\n");
+                out.append("                    if (!in.nextNull()) ");
+                if (!setters && required[i]) out.append("{\n                        ").append(String.format(target, property.read()))
+                        .append(";\n                        s").append(i).append(" = true;\n                    }\n");
+                else out.append(String.format(target, property.read())).append(";\n");
+                out.append("                    break;\n");
+            }
+            out.append("                default:\n                    in.skipValue();\n            }\n        } while (in.nextMember());\n");
+            if (setters) return out.append("        return result;\n").toString();
+            for (int i = 0; i < properties.size(); i++)
+                if (required[i]) out.append("        if (!s").append(i).append(") throw ").append(missing()).append('(')
+                        .append(literal(properties.get(i).name)).append(");\n");
+            out.append("        return new ").append(typeName).append('(');
+            for (int i = 0; i < properties.size(); i++) out.append(i == 0 ? "v" : ", v").append(i);
+            return out.append(");\n").toString();
+        }
+
+        // Primitives and parameters declared non-null (as Kotlin does with @NotNull): passing them the zero or null of an
+        // absent member would invent a value or fail in the constructor's own null check. Other members stay null
+        private boolean required(@NotNull VariableElement parameter) {
+            if (parameter.asType().getKind().isPrimitive()) return true;
+            for (AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+                Name name = annotation.getAnnotationType().asElement().getSimpleName();
+                if (name.contentEquals("NotNull") || name.contentEquals("NonNull") || name.contentEquals("Nonnull")) return true;
+            }
+            return false;
+        }
+
+        // Name of the helper building the error for a missing required member, added on first use
+        @NotNull
+        private String missing() {
+            if (!missingHelper) helpers.add("    private static org.json.JSONException missing(String name) {\n" +
+                    "        return new org.json.JSONException(\"Missing required member '\" + name + \"' of " + typeName + "\");\n    }\n");
+            missingHelper = true;
+            return "missing";
+        }
+
+        private boolean matches(@NotNull List<? extends VariableElement> parameters) {
+            for (int i = 0; i < parameters.size(); i++)
+                if (!processingEnv.getTypeUtils().isSameType(erasure(parameters.get(i).asType()), erasure(properties.get(i).field.asType())))
+                    return false;
+            return true;
+        }
+
+        @NotNull
+        private String typeConstant(@NotNull TypeMirror mirror) {
+            String literal = typeLiteral(mirror);
+            int index = types.indexOf(literal);
+            if (index < 0) {
+                index = types.size();
+                types.add(literal);
+            }
+            return "TYPE_" + index;
+        }
+
+        @NotNull
+        private String typeLiteral(@NotNull TypeMirror mirror) {
+            switch (mirror.getKind()) {
+                case DECLARED: {
+                    List<? extends TypeMirror> arguments = ((DeclaredType) mirror).getTypeArguments();
+                    String raw = erasure(mirror) + ".class";
+                    if (arguments.isEmpty()) return raw;
+                    StringBuilder result = new StringBuilder("sliep.jes.serializer.TypeToken.parameterized(").append(raw);
+                    for (TypeMirror argument : arguments) result.append(", ").append(typeLiteral(argument));
+                    return result.append(')').toString();
+                }
+                case ARRAY: {
+                    TypeMirror component = ((ArrayType) mirror).getComponentType();
+                    String literal = typeLiteral(component);
+                    return literal.endsWith(".class") ? literal.substring(0, literal.length() - 6) + "[].class" :
+                            "sliep.jes.serializer.TypeToken.arrayOf(" + literal + ")";
+                }
+                case WILDCARD: {
+                    TypeMirror bound = ((WildcardType) mirror).getExtendsBound();
+                    return bound == null ? "Object.class" : typeLiteral(bound);
+                }
+                case TYPEVAR:
+                    return typeLiteral(erasure(mirror));
+                default:
+                    return mirror + ".class";
+            }
+        }
+
+        @NotNull
+        private TypeMirror erasure(@NotNull TypeMirror mirror) {
+            return processingEnv.getTypeUtils().erasure(mirror);
+        }
+
+        @Nullable
+        private TypeElement superclass(@NotNull TypeElement t) {
+            TypeMirror superclass = t.getSuperclass();
+            if (superclass.getKind() != TypeKind.DECLARED) return null;
+            TypeElement result = (TypeElement) ((DeclaredType) superclass).asElement();
+            return result.getQualifiedName().contentEquals("java.lang.Object") ? null : result;
+        }
+
+        private boolean accessible(@NotNull Element element) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) return false;
+            if (modifiers.contains(Modifier.PUBLIC) ||
+                    processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().contentEquals(packageName)) {
+                Element enclosing = element.getEnclosingElement();
+                return enclosing.getKind() == ElementKind.PACKAGE || accessible(enclosing);
+            }
+            return false;
+        }
+
+        // A UserSerializer can be registered at runtime for any runtime-visible field annotation (that is what
+        // ClassBinding looks up), so only the annotations generated code handles itself are safe
+        @Nullable
+        private String foreignAnnotation(@NotNull VariableElement field) {
+            for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+                TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+                Name name = annotationType.getQualifiedName();
+                if (name.contentEquals(JsonName.class.getName()) || name.contentEquals(JesDate.class.getName()) ||
+                        name.contentEquals(JesIntern.class.getName())) continue;
+                Retention retention = annotationType.getAnnotation(Retention.class);
+                if (retention != null && retention.value() == RetentionPolicy.RUNTIME) return name.toString();
+            }
+            return null;
+        }
+
+        @Nullable
+        private ExecutableElement method(@NotNull String name, @Nullable TypeMirror parameter, @NotNull TypeMirror returnType) {
+            for (TypeElement t = type; t != null; t = superclass(t))
+                for (ExecutableElement method : ElementFilter.methodsIn(t.getEnclosedElements())) {
+                    if (!method.getSimpleName().contentEquals(name) || method.getModifiers().contains(Modifier.STATIC) || !accessible(method))
+                        continue;
+                    List<? extends VariableElement> parameters = method.getParameters();
+                    if (parameter == null ? !parameters.isEmpty() : parameters.size() != 1 ||
+                            !processingEnv.getTypeUtils().isSameType(erasure(parameters.get(0).asType()), erasure(parameter)))
+                        continue;
+                    if (processingEnv.getTypeUtils().isSameType(erasure(method.getReturnType()), erasure(returnType)))
+                        return method;
+                }
+            return null;
+        }
+
+        private final class Property {
+            @NotNull
+            final VariableElement field;
+            @NotNull
+            final String name;
+            @NotNull
+            final TypeMirror type;
+            @Nullable
+            final String datePattern;
+            @Nullable
+            private String enumHelper;
+
+            Property(@NotNull VariableElement field) {
+                this.field = field;
+                type = field.asType();
+                JsonName jsonName = field.getAnnotation(JsonName.class);
+                name = jsonName != null ? jsonName.value() : field.getSimpleName().toString();
+                JesDate date = field.getAnnotation(JesDate.class);
+                datePattern = date != null ? date.value() : null;
+            }
+
+            @Nullable
+            String reader() {
+                String fieldName = field.getSimpleName().toString();
+                if (accessible(field)) return "value." + fieldName;
+                ExecutableElement getter = null;
+                if (type.getKind() == TypeKind.BOOLEAN)
+                    getter = method(fieldName.startsWith("is") ? fieldName : "is" + capitalize(fieldName), null, type);
+                if (getter == null) getter = method("get" + capitalize(fieldName), null, type);
+                return getter == null ? null : "value." + getter.getSimpleName() + "()";
+            }
+
+            @Nullable
+            String writer() {
+                String fieldName = field.getSimpleName().toString();
+                if (accessible(field) && !field.getModifiers().contains(Modifier.FINAL))
+                    return "result." + fieldName + " = %s";
+                String setterName = "set" + capitalize(fieldName.startsWith("is") && type.getKind() == TypeKind.BOOLEAN ? fieldName.substring(2) : fieldName);
+                ExecutableElement setter = method(setterName, type, processingEnv.getTypeUtils().getNoType(TypeKind.VOID));
+                return setter == null ? null : "result." + setterName + "(%s)";
+            }
+
+            void encode(@NotNull StringBuilder out) {
+                String value = reader();
+                if (value == null) {
+                    error(field, "Field is not accessible and has no getter");
+                    return;
+                }
+                String key = literal(name);
+                if (type.getKind().isPrimitive()) {
+                    switch (type.getKind()) {
+                        case INT:
+                        case LONG:
+                        case DOUBLE:
+                        case FLOAT:
+                        case BOOLEAN:
+                            out.append("        result.put(").append(key).append(", ").append(value).append(");\n");
+                            break;
+                        default:
+                            out.append("        result.put(").append(key).append(", (Object) ").append(value).append(");\n");
+                    }
+                    return;
+                }
+                out.append("        {\n            Object element = ").append(value).append(";\n");
+                out.append("            if (element != null) result.put(").append(key).append(", ");
+                if (datePattern != null) out.append("sliep.jes.serializer.annotations.JesDate.Provider.format(").append(literal(datePattern)).append(", element)");
+                else if (isEnum()) out.append(valueEnum() ? "((sliep.jes.serializer.ValueEnum) element).getValue()" : "((Enum) element).name()");
+                else if (isString()) out.append("element");
+                else out.append("sliep.jes.serializer.Serializer.jsonValue(element)");
+                out.append(");\n        }\n");
+            }
+
+            void write(@NotNull StringBuilder out) {
+                String value = reader();
+                if (value == null) return;
+                String name = "        out.writeName(" + literal(this.name) + ");\n";
+                switch (type.getKind()) {
+                    case INT:
+                    case LONG:
+                    case SHORT:
+                    case BYTE:
+                        out.append(name).append("        out.writeLong(").append(value).append(");\n");
+                        return;
+                    case DOUBLE:
+                        out.append(name).append("        out.writeDouble(").append(value).append(");\n");
+                        return;
+                    case FLOAT:
+                        out.append(name).append("        out.writeFloat(").append(value).append(");\n");
+                        return;
+                    case BOOLEAN:
+                        out.append(name).append("        out.writeBoolean(").append(value).append(");\n");
+                        return;
+                    case CHAR:
+                        out.append(name).append("        out.writeString(String.valueOf(").append(value).append("));\n");
+                        return;
+                }
+                out.append("        {\n            Object element = ").append(value).append(";\n");
+                out.append("            if (element != null) {\n                out.writeName(").append(literal(this.name)).append(");\n                ");
+                if (datePattern != null)
+                    out.append("out.writeString(sliep.jes.serializer.annotations.JesDate.Provider.format(").append(literal(datePattern)).append(", element));\n");
+                else if (isEnum())
+                    out.append(valueEnum() ? "out.writeLong(((sliep.jes.serializer.ValueEnum) element).getValue());\n" : "out.writeString(((Enum) element).name());\n");
+                else if (isString()) out.append("out.writeString((String) element);\n");
+                else out.append("out.writeValue(element);\n");
+                out.append("            }\n        }\n");
+            }
+
+            @NotNull
+            String read() {
+                switch (type.getKind()) {
+                    case INT:
+                        return "(int) in.nextLong()";
+                    case LONG:
+                        return "in.nextLong()";
+                    case DOUBLE:
+                        return "in.nextDouble()";
+                    case FLOAT:
+                        return "in.nextFloat()";
+                    case BOOLEAN:
+                        return "in.nextBoolean()";
+                    case SHORT:
+                        return "(short) in.nextLong()";
+                    case BYTE:
+                        return "(byte) in.nextLong()";
+                    case CHAR:
+                        return "in.nextChar()";
+                }
+                String erased = erasure(type).toString();
+                if (isString()) return "(String) in.readValue(String.class)";
+                if (isEnum()) return enumHelper() + "(in.nextValue())";
+                if (datePattern != null)
+                    return "(" + erased + ") sliep.jes.serializer.annotations.JesDate.Provider.parse(" + literal(datePattern) +
+                            ", in.nextString(), " + typeConstant(type) + ")";
+                return "(" + erased + ") in.readValue(" + typeConstant(type) + ")";
+            }
+
+            @NotNull
+            String localType() {
+                return type.getKind().isPrimitive() ? type.getKind().name().toLowerCase(Locale.ROOT) : erasure(type).toString();
+            }
+
+            @NotNull
+            String decode() {
+                String key = literal(name);
+                switch (type.getKind()) {
+                    case INT:
+                        return "json.optInt(" + key + ")";
+                    case LONG:
+                        return "json.optLong(" + key + ")";
+                    case DOUBLE:
+                        return "json.optDouble(" + key + ", 0)";
+                    case FLOAT:
+                        return "json.optFloat(" + key + ", 0)";
+                    case BOOLEAN:
+                        return "json.optBoolean(" + key + ")";
+                    case SHORT:
+                        return "(short) json.optInt(" + key + ")";
+                    case BYTE:
+                        return "(byte) json.optInt(" + key + ")";
+                    case CHAR:
+                        return "json.isNull(" + key + ") ? (char) 0 : (Character) sliep.jes.serializer.Deserializer.objectValue(json.get(" + key + "), char.class)";
+                }
+                String erased = erasure(type).toString();
+                if (isString()) return "json.isNull(" + key + ") ? null : (String) sliep.jes.serializer.Deserializer.objectValue(json.get(" + key + "), String.class)";
+                if (isEnum()) return "json.isNull(" + key + ") ? null : " + enumHelper() + "(json.get(" + key + "))";
+                if (datePattern != null)
+                    return "json.isNull(" + key + ") ? null : (" + erased + ") sliep.jes.serializer.annotations.JesDate.Provider.parse(" +
+                            literal(datePattern) + ", json.get(" + key + ").toString(), " + typeConstant(type) + ")";
+                return "json.isNull(" + key + ") ? null : (" + erased + ") sliep.jes.serializer.Deserializer.objectValue(json.get(" + key + "), " + typeConstant(type) + ")";
+            }
+
+            @NotNull
+            private String enumHelper() {
+                if (enumHelper != null) return enumHelper;
+                String erased = erasure(type).toString();
+                String helper = enumHelper = "enum" + helpers.size();
+                String table = "ENUM_" + enums.size();
+                enums.add(erased);
+                StringBuilder out = new StringBuilder();
+                out.append("    private static ").append(erased).append(' ').append(helper).append("(Object json) {\n");
+                if (valueEnum()) {
+                    out.append("        int id = json instanceof Number ? ((Number) json).intValue() : Integer.parseInt(json.toString());\n");
+                    out.append("        Object constant = ").append(table).append(".byValue(id);\n");
+                    out.append("        if (constant != null) return (").append(erased).append(") constant;\n");
+                    out.append("        throw new IllegalArgumentException(\"No enum constant for value: \" + id + \" in \" + ").append(erased).append(".class);\n");
+                } else {
+                    out.append("        Object constant = json instanceof String ? ").append(table).append(".byName((String) json) : null;\n");
+                    out.append("        if (constant != null) return (").append(erased).append(") constant;\n");
+                    out.append("        throw new IllegalArgumentException(\"No enum constant for name: \" + json + \" in \" + ").append(erased).append(".class);\n");
+                }
+                helpers.add(out.append("    }\n").toString());
+                return helper;
+            }
+
+            private boolean isEnum() {
+                return type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM;
+            }
+
+            private boolean valueEnum() {
+                TypeElement valueEnum = processingEnv.getElementUtils().getTypeElement("sliep.jes.serializer.ValueEnum");
+                return valueEnum != null && processingEnv.getTypeUtils().isAssignable(type, valueEnum.asType());
+            }
+
+            private boolean isString() {
+                return erasure(type).toString().equals("java.lang.String");
+            }
+        }
+    }
+
+    @NotNull
+    private static String capitalize(@NotNull String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    @NotNull
+    private static String literal(@NotNull String value) {
+        StringBuilder result = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') result.append('\\').append(c);
+            else if (c < ' ' || c > '~') result.append(String.format("\\u%04x", (int) c));
+            else result.append(c);
+        }
+        return result.append('"').toString();
+    }
+}
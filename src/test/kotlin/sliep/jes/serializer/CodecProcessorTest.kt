@@ -0,0 +1,258 @@
+package sliep.jes.serializer
+
+import org.json.JSONException
+import org.json.JSONObject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.net.URLClassLoader
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import javax.tools.ToolProvider
+
+// Compiles @JesSerializable sources with JesCodecProcessor and checks the generated codecs against the reflective path
+class CodecProcessorTest {
+
+    @Test
+    fun fieldCodec() {
+        val json = JSONObject(SAMPLE_JSON)
+        json.put("child", JSONObject(SAMPLE_JSON).put("name", "child").put("color", JSONObject.NULL))
+        roundTrip(loader.loadClass("demo.Sample"), json.toString())
+        val codec = codec("demo.Sample")
+        val value = codec.read(JsonReader("{\"the_id\":3,\"unknown\":{\"a\":[1,null]},\"name\":null,\"level\":\"1\",\"nested\":[{\"k\":2}]}"))
+        val fields = JSONObject(json(codec, value))
+        assertEquals(3, fields.getInt("the_id"))
+        assertEquals(1, fields.getInt("level"))
+        assertFalse(fields.has("name") || fields.has("unknown"))
+        val nested = value.javaClass.getField("nested").get(value) as List<*>
+        assertEquals(2, (nested[0] as Map<*, *>)["k"])
+        val tree = codec.fromJson(JSONObject(SAMPLE_JSON))
+        assertEquals("HIGH", tree.javaClass.getField("level").get(tree).toString())
+    }
+
+    @Test
+    fun constructorCodec() {
+        roundTrip(loader.loadClass("demo.Point"), "{\"x\":-4,\"tags\":[\"a\",\"b\"],\"origin\":{\"x\":1}}")
+        val point = codec("demo.Point").read(JsonReader("{\"tags\":null,\"x\":9}"))
+        assertEquals(9, point.javaClass.getMethod("getX").invoke(point))
+        assertNull(point.javaClass.getMethod("getTags").invoke(point))
+    }
+
+    @Test
+    fun requiredMembers() {
+        val point = codec("demo.Point")
+        assertMissing("Missing required member 'x' of demo.Point") { point.read(JsonReader("{\"tags\":[]}")) }
+        assertMissing("Missing required member 'x' of demo.Point") { point.fromJson(JSONObject("{\"x\":null}")) }
+        val named = codec("demo.Named")
+        for (text in listOf("{\"name\":\"a\",\"id\":1}", "{\"id\":1,\"note\":null,\"name\":\"a\"}")) {
+            for (value in listOf(named.read(JsonReader(text)), named.fromJson(JSONObject(text)))) {
+                assertEquals("a", value.javaClass.getMethod("getName").invoke(value))
+                assertNull(value.javaClass.getMethod("getNote").invoke(value))
+            }
+        }
+        for (text in listOf("{\"id\":1}", "{\"name\":null,\"id\":1}")) {
+            assertMissing("Missing required member 'name' of demo.Named") { named.read(JsonReader(text)) }
+            assertMissing("Missing required member 'name' of demo.Named") { named.fromJson(JSONObject(text)) }
+        }
+        assertMissing("Missing required member 'id' of demo.Named") { named.read(JsonReader("{\"name\":\"a\"}")) }
+    }
+
+    @Test
+    fun incrementalServices() {
+        val classes = Files.createTempDirectory("jes-codec-incremental")
+        val output = Paths.get(loader.urLs[0].toURI())
+        Files.walk(output).forEach { if (!Files.isDirectory(it)) Files.copy(it, classes.resolve(output.relativize(it).toString()).also { target -> Files.createDirectories(target.parent) }) }
+        val extra = "package demo;\n\n@sliep.jes.serializer.annotations.JesSerializable\npublic class Extra {\n    public int id;\n}\n"
+        compile(mapOf("demo/Extra.java" to extra), classes, classes.toString())
+        val services = classes.resolve("META-INF/services/sliep.jes.serializer.JesCodec").toFile().readLines().filter { it.isNotEmpty() }
+        assertEquals(listOf("demo.Sample_JesCodec", "demo.Point_JesCodec", "demo.Named_JesCodec", "demo.Extra_JesCodec"), services)
+    }
+
+    @Test
+    fun reflectiveFallback() {
+        val services = loader.findResource("META-INF/services/sliep.jes.serializer.JesCodec")!!.readText()
+        assertEquals(listOf("demo.Sample_JesCodec", "demo.Point_JesCodec", "demo.Named_JesCodec"), services.lines().filter { it.isNotEmpty() })
+        assertNull(loader.findResource("demo/Tagged_JesCodec.class"))
+        assertTrue(output, output.contains("Field annotation @demo.Tagged.Upper may have a registered UserSerializer"))
+    }
+
+    private fun roundTrip(type: Class<*>, text: String) {
+        val codec = codec(type.name)
+        val value = Deserializer.objectValue(JSONObject(text), type)!!
+        val reflective = JSONObject(Serializer.jsonValue(value).toString())
+        // Tree
+        assertTrue(reflective.similar(JSONObject(codec.toJson(value).toString())))
+        assertEquals(reflective.toString(), Serializer.jsonValue(codec.fromJson(JSONObject(text))).toString())
+        // Streaming
+        assertTrue(reflective.similar(JSONObject(json(codec, value))))
+        assertEquals(reflective.toString(), Serializer.jsonValue(codec.read(JsonReader(text))).toString())
+        // Binary, each side read back by the other
+        val written = BinaryWriter(ByteBuffer.allocate(64), true).also { codec.write(value, it) }.buffer()
+        written.flip()
+        assertEquals(reflective.toString(), Serializer.jsonValue(BinaryDeserializer.readValue(BinaryReader(written), type)!!).toString())
+        val reflectiveBinary = BinaryWriter(ByteBuffer.allocate(64), true).also { BinarySerializer.write(value, it) }.buffer()
+        reflectiveBinary.flip()
+        assertEquals(reflective.toString(), Serializer.jsonValue(codec.read(BinaryReader(reflectiveBinary))).toString())
+    }
+
+    private fun assertMissing(message: String, block: () -> Unit) {
+        try {
+            block()
+            fail(message)
+        } catch (e: JSONException) {
+            assertEquals(message, e.message)
+        }
+    }
+
+    private fun json(codec: JesCodec<Any>, value: Any): String = StringBuilder().also { codec.write(value, JsonWriter.AppendableWriter(it)) }.toString()
+
+    @Suppress("UNCHECKED_CAST")
+    private fun codec(type: String): JesCodec<Any> = loader.loadClass(type + "_JesCodec").getDeclaredConstructor().newInstance() as JesCodec<Any>
+
+    companion object {
+        private const val SAMPLE_JSON = "{\"the_id\":5,\"big\":1099511627776,\"ratio\":0.25,\"f\":1.5,\"flag\":true,\"c\":\"è\"," +
+                "\"s\":-3,\"b\":9,\"name\":\"héllo \\\"q\\\"\",\"boxed\":42,\"color\":\"GREEN\",\"level\":7,\"day\":\"2020-02-29\"," +
+                "\"nested\":[{\"k\":1},{}],\"ints\":[1,2]}"
+
+        private val SOURCES = mapOf(
+            "demo/Sample.java" to """
+                package demo;
+
+                import sliep.jes.serializer.ValueEnum;
+                import sliep.jes.serializer.annotations.JesDate;
+                import sliep.jes.serializer.annotations.JesSerializable;
+                import sliep.jes.serializer.annotations.JsonName;
+
+                import java.time.LocalDate;
+                import java.util.List;
+                import java.util.Map;
+
+                @JesSerializable
+                public class Sample {
+                    public enum Color { RED, GREEN }
+
+                    public enum Level implements ValueEnum {
+                        LOW(1), HIGH(7);
+                        private final int value;
+                        Level(int value) { this.value = value; }
+                        public int getValue() { return value; }
+                    }
+
+                    @JsonName("the_id") public int id;
+                    public long big;
+                    public double ratio;
+                    public float f;
+                    public boolean flag;
+                    public char c;
+                    public short s;
+                    public byte b;
+                    public String name;
+                    public Integer boxed;
+                    public Color color;
+                    public Level level;
+                    @JesDate("yyyy-MM-dd") public LocalDate day;
+                    public List<Map<String, Integer>> nested;
+                    public int[] ints;
+                    public Sample child;
+                }
+            """,
+            "demo/Point.java" to """
+                package demo;
+
+                import sliep.jes.serializer.annotations.JesSerializable;
+                import java.util.List;
+
+                @JesSerializable
+                public final class Point {
+                    private final int x;
+                    private final List<String> tags;
+                    private final Point origin;
+
+                    public Point(int x, List<String> tags, Point origin) {
+                        this.x = x;
+                        this.tags = tags;
+                        this.origin = origin;
+                    }
+
+                    public int getX() { return x; }
+                    public List<String> getTags() { return tags; }
+                    public Point getOrigin() { return origin; }
+                }
+            """,
+            "demo/Named.java" to """
+                package demo;
+
+                import org.jetbrains.annotations.NotNull;
+                import org.jetbrains.annotations.Nullable;
+                import sliep.jes.serializer.annotations.JesSerializable;
+
+                @JesSerializable
+                public final class Named {
+                    private final String name;
+                    private final String note;
+                    private final long id;
+
+                    public Named(@NotNull String name, @Nullable String note, long id) {
+                        this.name = name;
+                        this.note = note;
+                        this.id = id;
+                    }
+
+                    public String getName() { return name; }
+                    public String getNote() { return note; }
+                    public long getId() { return id; }
+                }
+            """,
+            "demo/Tagged.java" to """
+                package demo;
+
+                import sliep.jes.serializer.annotations.JesSerializable;
+                import java.lang.annotation.*;
+
+                @JesSerializable
+                public class Tagged {
+                    @Retention(RetentionPolicy.RUNTIME)
+                    @Target(ElementType.FIELD)
+                    public @interface Upper {
+                    }
+
+                    @Upper public String name;
+                }
+            """
+        )
+
+        private lateinit var output: String
+
+        private val loader: URLClassLoader by lazy {
+            val classes = Files.createTempDirectory("jes-codec")
+            output = compile(SOURCES, classes)
+            assertNotNull(output, classes.resolve("demo/Sample_JesCodec.class").toFile().takeIf { it.exists() })
+            URLClassLoader(arrayOf(classes.toUri().toURL()), CodecProcessorTest::class.java.classLoader)
+        }
+
+        // Compiles sources into classes with the processor, returning the compiler output
+        private fun compile(sources: Map<String, String>, classes: Path, vararg classpath: String): String {
+            val root = Files.createTempDirectory("jes-codec-sources")
+            val files = sources.map { (name, source) ->
+                root.resolve(name).also { Files.createDirectories(it.parent) }.also { Files.write(it, source.trimIndent().toByteArray()) }
+            }
+            val err = ByteArrayOutputStream()
+            val compiler = ToolProvider.getSystemJavaCompiler()
+            val result = compiler.run(null, null, err, "-encoding", "UTF-8",
+                "-classpath", (classpath.toList() + System.getProperty("java.class.path")).joinToString(File.pathSeparator),
+                "-processor", "sliep.jes.serializer.processor.JesCodecProcessor", "-d", classes.toString(),
+                *files.map(Path::toString).toTypedArray())
+            val output = err.toString("UTF-8")
+            assertEquals(output, 0, result)
+            return output
+        }
+    }
+}
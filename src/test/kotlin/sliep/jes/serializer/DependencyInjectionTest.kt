@@ -4,9 +4,22 @@ package sliep.jes.serializer
 
 import org.junit.Assert
 import org.junit.Test
+import sliep.jes.serializer.di.DIScope
+import sliep.jes.serializer.di.Module
+import sliep.jes.serializer.di.ModuleVariant
+import sliep.jes.serializer.di.Scope
+import sliep.jes.serializer.di.Warmup
 import sliep.jes.serializer.dip.*
 import sliep.jes.serializer.dip.MyModule.Companion.inject
 import sliep.jes.serializer.dip.MyModule.Variants
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+private val entered = CountDownLatch(1)
+private val released = CountDownLatch(1)
 
 class DependencyInjectionTest {
 
@@ -44,4 +57,144 @@ class DependencyInjectionTest {
             Assert.assertEquals("DependencyB(Provided by MyModuleTestImpl)", dependencyB.toString())
         }
     }
-}
\ No newline at end of file
+
+    object FailingModule : Module() {
+        fun provideA(): DependencyA = throw IllegalArgumentException("Not available")
+    }
+
+    @Test
+    fun cachedResolution() {
+        repeat(3) {
+            Assert.assertEquals("DependencyA(Super secret)", Claaaaa.ccz().dependencyA.toString())
+            Assert.assertEquals(DependencyCChild::class.java, MyModule.resolve(Claaaaa.cc(), DependencyCChild::class.java).javaClass)
+        }
+        repeat(2) {
+            try {
+                FailingModule.resolve(this, DependencyA::class.java)
+                Assert.fail()
+            } catch (e: IllegalArgumentException) {
+                Assert.assertEquals("Not available", e.message)
+            }
+        }
+    }
+
+    object ScopedModule : Module() {
+        private val created = AtomicInteger()
+
+        @Scope(DIScope.Singleton::class)
+        fun provideC(): DependencyC = DependencyC("${created.incrementAndGet()}")
+
+        @Scope(DIScope.PerRequester::class)
+        fun provideA(requester: Any): DependencyA = DependencyA("${created.incrementAndGet()}")
+
+        @Scope(DIScope.PerThread::class)
+        fun provideB(): DependencyB = DependencyB("${created.incrementAndGet()}")
+    }
+
+    @Test
+    fun scopedProviders() {
+        val singleton = ScopedModule.resolve(this, DependencyC::class.java)
+        Assert.assertSame(singleton, ScopedModule.resolve("requester", DependencyC::class.java))
+        val perRequester = ScopedModule.resolve(this, DependencyA::class.java)
+        Assert.assertSame(perRequester, ScopedModule.resolve(DependencyInjectionTest(), DependencyA::class.java))
+        Assert.assertNotSame(perRequester, ScopedModule.resolve("requester", DependencyA::class.java))
+        val perThread = ScopedModule.resolve(this, DependencyB::class.java)
+        Assert.assertSame(perThread, ScopedModule.resolve("requester", DependencyB::class.java))
+        var other: Any? = null
+        Thread { other = ScopedModule.resolve(this, DependencyB::class.java) }.apply { start() }.join()
+        Assert.assertNotSame(perThread, other)
+        Assert.assertSame(singleton, ScopedModule.resolve(this, DependencyC::class.java))
+    }
+
+    object BlockingModule : Module() {
+        // A String requester blocks until another requester class got its instance
+        @Scope(DIScope.PerRequester::class)
+        fun provideA(requester: Any): DependencyA {
+            if (requester !is String) {
+                released.countDown()
+                return DependencyA("other")
+            }
+            entered.countDown()
+            return DependencyA(released.await(5, TimeUnit.SECONDS).toString())
+        }
+    }
+
+    @Test
+    fun perRequesterConcurrency() {
+        var blocked: Any? = null
+        val thread = Thread { blocked = BlockingModule.resolve("requester", DependencyA::class.java) }.apply { start() }
+        Assert.assertTrue(entered.await(5, TimeUnit.SECONDS))
+        Assert.assertEquals("DependencyA(other)", BlockingModule.resolve(this, DependencyA::class.java).toString())
+        thread.join()
+        Assert.assertEquals("DependencyA(true)", blocked.toString())
+    }
+
+    object SwitchedModule : ModuleVariant<Variants, MyModule>() {
+        override fun initializeVariants(): Variants {
+            variants[Variants.Main] = MyModuleImpl
+            variants[Variants.Testing] = MyModuleTestImpl
+            return Variants.Main
+        }
+    }
+
+    @Test
+    fun variantSwitching() {
+        val requester = object : Requester1 {}
+        val stop = AtomicBoolean()
+        val unexpected = AtomicInteger()
+        val readers = List(4) {
+            Thread {
+                while (!stop.get()) {
+                    val value = SwitchedModule.resolve(requester, DependencyB::class.java).toString()
+                    if (value != "DependencyB(Provided by MyModuleImpl)" && value != "DependencyB(Provided by MyModuleTestImpl)")
+                        unexpected.incrementAndGet()
+                }
+            }.apply { start() }
+        }
+        repeat(1000) { SwitchedModule.variant = if (it % 2 == 0) Variants.Testing else Variants.Main }
+        stop.set(true)
+        readers.forEach { it.join() }
+        Assert.assertEquals(0, unexpected.get())
+        Assert.assertEquals(Variants.Main, SwitchedModule.variant)
+        SwitchedModule.variant = Variants.Main
+    }
+
+    object WarmModule : Module() {
+        private val created = AtomicInteger()
+
+        @Scope(DIScope.Singleton::class)
+        fun provideC(): DependencyC = DependencyC("${created.incrementAndGet()}")
+
+        @Scope(DIScope.Singleton::class)
+        fun provideB(): DependencyB = DependencyB("${resolve(this, DependencyC::class.java)}")
+
+        fun provideA(requester: Requester1): DependencyA = DependencyA("${resolve(this, DependencyB::class.java)}")
+    }
+
+    object CyclicModule : Module() {
+        @Scope(DIScope.Singleton::class)
+        fun provideA(): DependencyA = DependencyA("${resolve(this, DependencyB::class.java)}")
+
+        @Scope(DIScope.Singleton::class)
+        fun provideB(): DependencyB = DependencyB("${resolve(this, DependencyA::class.java)}")
+    }
+
+    @Test
+    fun warmUp() {
+        val executor = Executors.newFixedThreadPool(2)
+        try {
+            val report = Warmup.warmUp(WarmModule, executor)
+            Assert.assertTrue(report.toString(), report.isValid)
+            Assert.assertEquals(3, report.timings.size)
+            Assert.assertEquals("DependencyB(DependencyC(1))", WarmModule.resolve(this, DependencyB::class.java).toString())
+            Assert.assertEquals("DependencyA(DependencyB(DependencyC(1)))", WarmModule.resolve(object : Requester1 {}, DependencyA::class.java).toString())
+            val cyclic = Warmup.warmUp(CyclicModule, executor)
+            Assert.assertFalse(cyclic.isValid)
+            Assert.assertTrue(cyclic.toString(), cyclic.problems.all { it.kind == Warmup.Problem.Kind.CYCLE })
+        } finally {
+            executor.shutdown()
+        }
+        val variants = Warmup.validate(MyModule).problems.map { it.kind }.toSet()
+        Assert.assertEquals(setOf(Warmup.Problem.Kind.AMBIGUOUS), variants)
+    }
+}
@@ -3,13 +3,31 @@
 package sliep.jes.serializer
 
 import org.json.JSONArray
+import org.json.JSONException
 import org.json.JSONObject
+import org.junit.Assert.assertArrayEquals
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
 import org.junit.Test
 import sliep.jes.serializer.annotations.JesDate
+import sliep.jes.serializer.annotations.JesIntern
 import sliep.jes.serializer.annotations.JsonName
+import java.io.ByteArrayOutputStream
 import java.lang.reflect.Type
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.StandardOpenOption
+import java.time.Instant
+import java.time.LocalDateTime
+import java.time.OffsetDateTime
+import java.time.ZoneOffset
 import java.util.*
+import java.util.concurrent.ForkJoinPool
+import java.util.stream.Collectors
 
 class JesSerializerTest {
 
@@ -48,6 +66,334 @@ class JesSerializerTest {
         assertEquals(modelTest.toJson().toString(), copy)
     }
 
+    @Test
+    fun streamingWriter() {
+        val modelTest = JSONObject(ModelTest.TEST_JSON).fromJson<ModelTest>()
+        assertEquals(modelTest.toJson().toString(), JSONObject(modelTest.toJsonString()).toString())
+        val bytes = ByteArrayOutputStream()
+        val escaped = listOf("</script>", "\u00e8\u2028\t\"", "\ud83d\ude00")
+        escaped.writeJson(bytes)
+        assertEquals(escaped.toJson().toString(), String(bytes.toByteArray(), Charsets.UTF_8))
+    }
+
+    @Test
+    fun streamingReader() {
+        val modelTest = JSONObject(ModelTest.TEST_JSON).fromJson<ModelTest>()
+        val streamed = ModelTest.TEST_JSON.reader().fromJson<ModelTest>()
+        assertEquals(modelTest.toJson().toString(), streamed.toJson().toString())
+        val corpus = this::class.java.getResourceAsStream("/test.json").use { it.readBytes() }
+        assertArrayEquals(
+            JSONArray(String(corpus, Charsets.UTF_8)).fromJson<Array<PerformanceTest.TestJson>>(),
+            corpus.inputStream().fromJson<Array<PerformanceTest.TestJson>>()
+        )
+        val mappy = "{\"a\":[1,2],\"b\":[3]}".reader().fromJsonType<HashMap<String, IntArray>>()
+        assertArrayEquals(intArrayOf(1, 2), mappy["a"])
+        assertArrayEquals(intArrayOf(3), mappy["b"])
+    }
+
+    @Test
+    fun primitiveArrays() {
+        val arrays = PrimitiveArrays(
+            intArrayOf(1, -2, Int.MAX_VALUE), longArrayOf(Long.MIN_VALUE, 3), doubleArrayOf(0.1, -2.5E-300, 1.0),
+            floatArrayOf(45.6f, 1E20f), shortArrayOf(-7, 300), byteArrayOf(-128, 127), charArrayOf('a', 'è'),
+            booleanArrayOf(true, false)
+        )
+        val json = arrays.toJson()
+        assertEquals(json.toString(), json.fromJson<PrimitiveArrays>().toJson().toString())
+        assertEquals(json.toString(), arrays.toJsonString().reader().fromJson<PrimitiveArrays>().toJson().toString())
+        assertEquals(json.toString(), JSONObject(arrays.toJsonString()).toString())
+        // Parsed text holds chars as one-character strings, not Character
+        val parsed = JSONObject(arrays.toJsonString()).fromJson<PrimitiveArrays>()
+        assertArrayEquals(charArrayOf('a', 'è'), parsed.c)
+        assertEquals(json.toString(), parsed.toJson().toString())
+        assertArrayEquals(charArrayOf('x', 'A'), JSONObject("{\"c\":[\"x\",65]}").fromJson<CharArrayModel>().c)
+        assertEquals('x', Deserializer.objectValue("x", Char::class.javaPrimitiveType!!))
+        try {
+            JSONObject("{\"c\":[\"xy\"]}").fromJson<CharArrayModel>()
+            fail()
+        } catch (e: JSONException) {
+            assertEquals("Expected single character: \"xy\"", e.cause!!.message)
+        }
+    }
+
+    @Test
+    fun generatedAccessors() {
+        val model = JSONObject(ModelTest.TEST_JSON).fromJson<ModelTest>()
+        val fields = ModelTest::class.java.declaredFields.filter { !java.lang.reflect.Modifier.isStatic(it.modifiers) }
+            .onEach { it.isAccessible = true }.toTypedArray()
+        val accessors = FieldAccessor.of(fields)
+        if (!java.lang.Boolean.getBoolean("sliep.jes.serializer.reflection") && !System.getProperty("java.version").startsWith("1."))
+            assertTrue(accessors.all { it is GeneratedAccessor })
+        for ((field, accessor) in fields.zip(accessors)) assertEquals(field.get(model), accessor.get(model))
+        val copy = JSONObject(ModelTest.TEST_JSON).fromJson<ModelTest>()
+        for ((field, accessor) in fields.zip(accessors)) when (field.type) {
+            Int::class.java -> accessor.setInt(copy, accessor.getInt(model) + 1)
+            Long::class.java -> accessor.setLong(copy, accessor.getLong(model) + 1)
+            Double::class.java -> accessor.setDouble(copy, accessor.getDouble(model) + 1)
+            Boolean::class.java -> accessor.setBoolean(copy, !accessor.getBoolean(model))
+            else -> accessor.set(copy, accessor.get(model))
+        }
+        assertEquals(model.copy(i = 124, l = 34567654345679, d = 79.9, b = false), copy)
+        assertEquals(model.f.toDouble(), accessors[fields.indexOfFirst { it.name == "f" }].getDouble(model), 1E-6)
+    }
+
+    @Test
+    fun lateSerializerRegistration() {
+        val model = LateModel(ModelImplTest("late", 7))
+        assertEquals("{\"impl\":{\"a\":\"late\",\"b\":7}}", model.toJson().toString())
+        object : UserSerializer<LateSerializer, String, ModelImplTest>(LateSerializer::class.java) {
+            override fun toJson(annotation: LateSerializer, value: ModelImplTest): String = "${value.a}:${value.b}"
+
+            override fun fromJson(annotation: LateSerializer, value: String, type: Type): ModelImplTest =
+                ModelImplTest(value.substringBefore(':'), value.substringAfter(':').toInt())
+        }
+        assertEquals("{\"impl\":\"late:7\"}", model.toJson().toString())
+        assertEquals("{\"impl\":\"late:7\"}", model.toJsonString())
+        assertEquals(7, JSONObject("{\"impl\":\"late:7\"}").fromJson<LateModel>().impl.b)
+    }
+
+    @Test
+    fun javaTimeDates() {
+        val dates = TimeModel(
+            LocalDateTime.of(2020, 1, 27, 13, 14, 0),
+            OffsetDateTime.of(2020, 1, 27, 13, 14, 0, 0, ZoneOffset.ofHours(2)),
+            Instant.ofEpochMilli(1580127240123)
+        )
+        val json = dates.toJson()
+        assertEquals("2020-01-27 13:14:00", json.getString("local"))
+        assertEquals("2020-01-27T13:14:00+02:00", json.getString("offset"))
+        val copy = json.fromJson<TimeModel>()
+        assertEquals(dates.local, copy.local)
+        assertEquals(dates.offset, copy.offset)
+        assertEquals(dates.instant, copy.instant)
+    }
+
+    @Test
+    fun registeredCodec() {
+        val model = CodecModel("coded")
+        assertEquals("{\"codec\":\"coded\"}", model.toJson().toString())
+        assertEquals("{\"codec\":\"coded\"}", model.toJsonString())
+        assertEquals("coded", JSONObject("{\"codec\":\"coded\"}").fromJson<CodecModel>().label)
+        assertEquals("coded", "{\"codec\":\"coded\"}".reader().fromJson<CodecModel>().label)
+    }
+
+    @Test
+    fun embeddedJsonStrings() {
+        assertArrayEquals(intArrayOf(1, 2), Deserializer.objectValueString(" \n[1,2]", IntArray::class.java) as IntArray)
+        assertEquals("a", (Deserializer.objectValueString("\t{\"ulul\":\"a\",\"ddfdf\":1}", Skkkk::class.java) as Skkkk).ulul)
+        assertEquals(1, (" {\"a\":1}".tryAsJSON() as JSONObject).getInt("a"))
+        assertEquals(2, ("[1,2]".tryAsJSON() as JSONArray).length())
+        assertEquals(null, "plain text".tryAsJSON())
+        assertEquals(null, "{broken".tryAsJSON())
+        assertEquals(null, suppress(IllegalArgumentException::class) { Deserializer.objectValueString("plain", Skkkk::class.java) })
+    }
+
+    @Test
+    fun parallelArrays() {
+        val pool = ForkJoinPool(4)
+        try {
+            val options = ParallelOptions(pool, 0, 64)
+            val items = Array(10_000) { Skkkk("item$it", it) }
+            val json = items.toJson(options)
+            assertEquals(items.toJson().toString(), json.toString())
+            assertEquals(json.toString(), items.asIterable().toJson(options).toString())
+            val array = json.fromJson<Array<Skkkk>>(options)
+            val list = json.fromJsonType<ArrayList<Skkkk>>(options)
+            assertEquals(items.toList(), array.toList())
+            assertEquals(items.toList(), list)
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun streamingElements() {
+        val text = "[{\"ulul\":\"a\",\"ddfdf\":1}, {\"ulul\":\"b\",\"ddfdf\":2}, {\"ulul\":\"c\",\"ddfdf\":3}]"
+        Deserializer.stream<Skkkk>(text.reader(), Skkkk::class.java).use { stream ->
+            assertEquals(listOf("a", "c"), stream.filter { it.ddfdf != 2 }.map { it.ulul }.collect(Collectors.toList()))
+        }
+        assertEquals(6, text.byteInputStream().jsonSequence<Skkkk>().sumBy { it.ddfdf })
+        assertEquals(listOf(listOf(1, 2), listOf()), "[[1,2],[]]".reader().jsonSequenceType<List<Int>>().toList())
+        assertEquals(0, "[ ]".reader().jsonSequence<Skkkk>().count())
+        val lazy = "[{\"ulul\":\"a\",\"ddfdf\":1}, {\"ulul\":\"b\",\"ddfdf\":2}, !!!"
+        assertEquals(listOf("a", "b"), lazy.reader().jsonSequence<Skkkk>().take(2).map { it.ulul }.toList())
+    }
+
+    @Test
+    fun jsonLines() {
+        val items = List(5_000) { Skkkk("line\n$it", it) }
+        val out = ByteArrayOutputStream()
+        items.writeJsonLines(out)
+        val text = out.toString("UTF-8")
+        assertEquals(items.size, text.lines().count { it.isNotEmpty() })
+        assertEquals("{\"ulul\":\"line\\n0\",\"ddfdf\":0}", text.substringBefore('\n'))
+        assertEquals(items, out.toByteArray().inputStream().jsonLines<Skkkk>().toList())
+        val pool = ForkJoinPool(4)
+        try {
+            val options = ParallelOptions(pool, 0, 32)
+            assertEquals(items, "\n$text\n\n".byteInputStream().jsonLines<Skkkk>(options).toList())
+            JsonLines.stream<Skkkk>(text.reader(), Skkkk::class.java, options).use { stream ->
+                assertEquals(items.sumBy { it.ddfdf }, stream.mapToInt { it.ddfdf }.sum())
+            }
+            val inline = ParallelOptions(pool, Int.MAX_VALUE, 32)
+            assertEquals(items, text.byteInputStream().jsonLines<Skkkk>(inline).toList())
+            // One record per line on both paths
+            val line = "{\"ulul\":\"a\",\"ddfdf\":1}"
+            for (input in listOf("$line\n\n{\"ulul\":\"b\",\n\"ddfdf\":2}", "$line\n\n$line $line"))
+                for (lines in listOf(input.byteInputStream().jsonLines<Skkkk>(), input.byteInputStream().jsonLines<Skkkk>(options)))
+                    try {
+                        lines.toList()
+                        fail(input)
+                    } catch (e: JSONException) {
+                        assertEquals("Failed to decode record at line 3", e.message)
+                    }
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun binaryEncoding() {
+        val model = JSONObject(ModelTest.TEST_JSON).fromJson<ModelTest>()
+        assertEquals(model.toJson().toString(), model.toBinary().fromBinary<ModelTest>().toJson().toString())
+        val arrays = PrimitiveArrays(
+            intArrayOf(1, -2, Int.MAX_VALUE), longArrayOf(Long.MIN_VALUE, 3), doubleArrayOf(0.1, -2.5E-300, 1.0),
+            floatArrayOf(45.6f, 1E20f), shortArrayOf(-7, 300), byteArrayOf(-128, 127), charArrayOf('a', 'è'),
+            booleanArrayOf(true, false)
+        )
+        assertEquals(arrays.toJson().toString(), arrays.toBinary().fromBinary<PrimitiveArrays>().toJson().toString())
+        val items = List(1_000) { Skkkk("item", it) }
+        val binary = items.toBinary()
+        assertEquals(items, binary.fromBinaryType<ArrayList<Skkkk>>())
+        assertEquals(items.toJson().toString(), ByteBuffer.wrap(binary).fromBinary<JSONArray>().toString())
+        assertTrue(binary.size * 3 < items.toJsonString().length)
+        val buffer = ByteBuffer.allocateDirect(64)
+        BinarySerializer.encode(intArrayOf(4, 5, 6), buffer)
+        buffer.flip()
+        assertEquals(listOf(4, 5, 6), buffer.fromBinaryType<List<Int>>())
+        val little = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN)
+        BinarySerializer.encode(arrays, little)
+        assertEquals(ByteOrder.LITTLE_ENDIAN, little.order())
+        little.flip()
+        assertEquals(arrays.toBinary().toList(), ByteArray(little.remaining()).also { little.duplicate().get(it) }.toList())
+        assertEquals(arrays.toJson().toString(), little.fromBinary<PrimitiveArrays>().toJson().toString())
+        assertEquals(ByteOrder.LITTLE_ENDIAN, little.order())
+        val unversioned = binary.copyOfRange(1, binary.size)
+        try {
+            unversioned.fromBinary<JSONArray>()
+            fail()
+        } catch (e: JSONException) {
+            assertEquals("Unsupported binary format version 0xa at byte 1", e.message)
+        }
+    }
+
+    @Test
+    fun mappedFiles() {
+        val items = List(2_000) { Skkkk("ìtém €$it \uD83D\uDE00", it) }
+        val file = Files.createTempFile("jes", ".json")
+        try {
+            Files.write(file, items.toJsonString().toByteArray(Charsets.UTF_8))
+            assertEquals(items, file.fromJsonType<ArrayList<Skkkk>>())
+            assertEquals(items, Deserializer.read(Files.readAllBytes(file), object : TypeToken<ArrayList<Skkkk>>() {}.type))
+            ByteBufferReader(FileChannel.open(file), 7).use { reader ->
+                assertEquals(items.toJsonString(), reader.readText())
+            }
+        } finally {
+            Files.delete(file)
+        }
+    }
+
+    @Test
+    fun bufferOutput() {
+        val items = List(2_000) { Skkkk("ìtém €$it \uD83D\uDE00", it) }
+        val expected = items.toJsonString().toByteArray(Charsets.UTF_8)
+        val buffer = items.writeJson(ByteBuffer.allocateDirect(1))
+        assertTrue(buffer.isDirect)
+        buffer.flip()
+        assertArrayEquals(expected, ByteArray(buffer.remaining()).also { buffer.get(it) })
+        val chain = ByteBufferChain(64)
+        repeat(2) {
+            chain.clear()
+            items.writeJson(chain)
+            assertEquals(expected.size.toLong(), chain.size())
+            assertArrayEquals(expected, chain.toByteArray())
+        }
+        val file = Files.createTempFile("jes", ".json")
+        try {
+            FileChannel.open(file, StandardOpenOption.WRITE).use { chain.writeTo(it) }
+            assertFalse(chain.hasRemaining())
+            assertArrayEquals(expected, Files.readAllBytes(file))
+        } finally {
+            Files.delete(file)
+        }
+    }
+
+    @Test
+    fun pooledBuffers() {
+        val items = List(3_000) { Counter(it * 1_000_000_007L - 50_000_000_000L, it % 3 == 0, if (it % 2 == 0) null else "n$it") }
+        val out = ByteArrayOutputStream()
+        Serializer.write(items, out)
+        assertEquals(items.toJsonString(), out.toString("UTF-8"))
+        repeat(2) {
+            assertEquals(items, out.toByteArray().inputStream().fromJsonType<ArrayList<Counter>>())
+        }
+        val json = "[{\"id\":${Long.MIN_VALUE},\"flag\":true,\"note\":null,\"unknown\":[null,false]},{\"i\\u0064\":1}]"
+        val decoded = Deserializer.read(json.reader(), object : TypeToken<ArrayList<Counter>>() {}.type) as List<*>
+        assertEquals(listOf(Counter(Long.MIN_VALUE, true, null), Counter(1, false, null)), decoded)
+        val chars = BufferPool.CHARS.acquire()
+        BufferPool.CHARS.release(chars)
+        assertTrue(chars === BufferPool.CHARS.acquire())
+    }
+
+    @Test
+    fun stringCache() {
+        val text = "[{\"tags\":[\"blue\",\"apple\"],\"color\":\"green\"},{\"tags\":[\"apple\"],\"color\":\"green\"}]"
+        for (decoded in listOf(JSONArray(text).fromJsonType<ArrayList<Tagged>>(), text.reader().jsonSequenceType<Tagged>().toList())) {
+            assertTrue(decoded[0].tags[1] === decoded[1].tags[0])
+            assertFalse(decoded[0].color === decoded[1].color)
+        }
+        StringCache.setGlobal(StringCache(1024))
+        try {
+            val decoded = text.reader().jsonSequenceType<Tagged>().toList()
+            assertTrue(decoded[0].color === decoded[1].color)
+            val tree = JSONArray(text).fromJsonType<ArrayList<Tagged>>()
+            assertTrue(tree[0].color === decoded[1].color)
+            val maps = JSONArray("[{\"eyeColor\":1},{\"eyeColor\":2}]").fromJsonType<ArrayList<HashMap<String, Int>>>()
+            assertTrue(maps[0].keys.first() === maps[1].keys.first())
+            val binary = listOf(Tagged(arrayListOf(), "gr" + "een")).toBinary().fromBinaryType<ArrayList<Tagged>>()
+            assertTrue(binary[0].color === decoded[0].color)
+        } finally {
+            StringCache.setGlobal(null)
+        }
+        val bounded = StringCache(16)
+        repeat(100) { bounded.canonicalize("value$it") }
+        assertTrue(bounded.size() <= 16)
+        assertEquals("x".repeat(40), bounded.canonicalize("x".repeat(40)))
+        assertTrue(bounded.size() <= 16)
+    }
+
+    @Test
+    fun numberCodec() {
+        val random = Random(7)
+        val doubles = DoubleArray(10_000) {
+            when (it % 3) {
+                0 -> java.lang.Double.longBitsToDouble(random.nextLong())
+                1 -> Math.round(random.nextDouble() * 1e8) / 1e4
+                else -> random.nextGaussian() * 1e-5
+            }.let { value -> if (value.isNaN() || value.isInfinite()) 0.0 else value }
+        }
+        val floats = FloatArray(doubles.size) { i -> doubles[i].toFloat().let { value -> if (value.isInfinite()) 1f else value } }
+        val text = PrimitiveArraysModel(doubles, floats).toJsonString()
+        val decoded = text.reader().use { Deserializer.read(it, PrimitiveArraysModel::class.java) } as PrimitiveArraysModel
+        assertArrayEquals(doubles, decoded.doubles, 0.0)
+        assertArrayEquals(floats, decoded.floats, 0f)
+        assertEquals("[0.1,-2.5,1234567.125,1.0E-4,3]", doubleArrayOf(0.1, -2.5, 1234567.125, 1e-4, 3.0).toJsonString())
+        assertEquals("[0.1,1.1,1048576,1.6777216E7]", floatArrayOf(0.1f, 1.1f, 1048576f, 16777216f).toJsonString())
+        assertEquals(4.9e-324, Deserializer.objectValue("4.9e-324", Double::class.java))
+        assertEquals(1.7976931348623157e308, Deserializer.objectValue("1.7976931348623157e308", Double::class.java))
+        assertEquals(0.3f, Deserializer.objectValue("0.3", Float::class.java))
+    }
+
     @Test
     fun JSONArrayToArray() {
         val ar1 = JSONArray("[\"a\",\"b\",\"c\",\"d\",\"e\",\"f\"]")
@@ -62,12 +408,35 @@ class JesSerializerTest {
         assertEquals(modelTest.abcd, AnEnumClass.SSUUS)
     }
 
+    @Test
+    fun enumLookup() {
+        assertEquals(AnEnumClass.SOSOSOO, AnEnumClass::class.java enumId 3)
+        assertEquals(AnEnumClass.CANE, AnEnumClass::class.java enumName "CANE")
+        assertEquals(SparseEnum.LARGE, SparseEnum::class.java enumId 1_000_000)
+        assertEquals(SparseEnum.NEGATIVE, Deserializer.objectValue(-70_000, SparseEnum::class.java))
+        assertEquals(SparseEnum.ZERO, Deserializer.objectValue("0", SparseEnum::class.java))
+        assertEquals(null, suppress { SparseEnum::class.java enumId 7 })
+    }
+
+    enum class SparseEnum(override val value: Int) : ValueEnum {
+        NEGATIVE(-70_000),
+        ZERO(0),
+        LARGE(1_000_000)
+    }
+
     enum class AnEnumClass(override val value: Int) : ValueEnum {
         CANE(1),
         SSUUS(2),
         SOSOSOO(3)
     }
 
+    class PrimitiveArrays(
+        val i: IntArray, val l: LongArray, val d: DoubleArray, val f: FloatArray,
+        val s: ShortArray, val b: ByteArray, val c: CharArray, val z: BooleanArray
+    )
+
+    class CharArrayModel(val c: CharArray)
+
     class ModelImplTest(val a: String, val b: Int)
 
     @MustBeDocumented
@@ -86,8 +455,36 @@ class JesSerializerTest {
         }
     }
 
+    @Retention(AnnotationRetention.RUNTIME)
+    @Target(AnnotationTarget.FIELD)
+    annotation class LateSerializer
+
+    class LateModel(@JvmField @LateSerializer val impl: ModelImplTest)
+
+    class TimeModel(
+        @JesDate("yyyy-MM-dd HH:mm:ss") val local: LocalDateTime,
+        @JesDate("yyyy-MM-dd'T'HH:mm:ssXXX") val offset: OffsetDateTime,
+        @JesDate("yyyy-MM-dd'T'HH:mm:ss.SSSXXX") val instant: Instant
+    )
+
+    class CodecModel(val label: String)
+
+    class CodecModelCodec : JesCodec<CodecModel> {
+        override fun type(): Class<CodecModel> = CodecModel::class.java
+
+        override fun toJson(value: CodecModel): JSONObject = JSONObject().put("codec", value.label)
+
+        override fun fromJson(json: JSONObject): CodecModel = CodecModel(json.getString("codec"))
+    }
+
     data class Skkkk(val ulul: String, val ddfdf: Int)
 
+    class Tagged(@JesIntern val tags: ArrayList<String>, val color: String)
+
+    class PrimitiveArraysModel(val doubles: DoubleArray, val floats: FloatArray)
+
+    data class Counter(val id: Long, val flag: Boolean, val note: String?)
+
     data class ModelTest(
         @JsonName("pippo")
         var s: String,
@@ -14,56 +14,16 @@ class PerformanceTest {
     fun jesVsGson() {
         val input =
             JSONArray(InputStreamReader(this::class.java.getResourceAsStream("/test.json")).use { it.readText() })
+        val gsonInstance = Gson()
 
-        System.err.println("Jes vs Gson performance test (${input.length()} bytes)")
-        System.err.println()
-
-        lateinit var gsonInstance: Gson
-        lateinit var gson: Array<TestJson>
-        lateinit var jes: Array<TestJson>
-        lateinit var gsonOrig: String
-        lateinit var jesOrig: JSONArray
-        var gt: Float
-        var jt: Float
-
-        bm("Gson instantiation took ") { gsonInstance = Gson() }
-        gt = bm("Deserializing Gson:") { gson = gsonInstance.fromJson(input.toString(), Array<TestJson>::class.java) }
-        jt = bm("Deserializing Jes:") { jes = input.fromJson() }
-        System.err.println("Jes is ${gt / jt} times faster than gson")
+        val gson = gsonInstance.fromJson(input.toString(), Array<TestJson>::class.java)
+        val jes = input.fromJson<Array<TestJson>>()
         Assert.assertArrayEquals(jes, gson)
-        System.err.println("CONTENT IS IDENTICAL")
-        System.err.println()
-
-        gt = bm("Deserializing Gson 100 times avg:", 100) {
-            gsonInstance.fromJson(
-                input.toString(),
-                Array<TestJson>::class.java
-            )
-        }
-        jt = bm("Deserializing Jes 100 times avg:", 100) { input.fromJson<Array<TestJson>>() }
-        System.err.println("Jes is ${gt / jt} times faster than gson")
-        System.err.println()
 
-        gt = bm("Serializing Gson:") { gsonOrig = gsonInstance.toJson(gson) }
-        jt = bm("Serializing Jes:") { jesOrig = jes.toJson() }
-        System.err.println("Jes is ${gt / jt} times faster than gson")
+        val gsonOrig = gsonInstance.toJson(gson)
+        val jesOrig = jes.toJson()
         Assert.assertEquals(JSONArray(gsonOrig).toString(), jesOrig.toString())
         Assert.assertEquals(input.toString(), jesOrig.toString())
-        System.err.println("CONTENT IS IDENTICAL")
-        System.err.println()
-
-        gt = bm("Serializing Gson 100 times avg:", 100) { gsonInstance.toJson(gson) }
-        jt = bm("Serializing Jes 100 times avg:", 100) { gson.toJson() }
-        System.err.println("Jes is ${gt / jt} times faster than gson")
-        System.err.println()
-    }
-
-    private inline fun bm(message: String, repeatCount: Int = 1, block: () -> Unit): Float {
-        val start = System.nanoTime()
-        for (i in 0 until repeatCount) block()
-        val result = ((System.nanoTime() - start) / repeatCount) / 1000_000f
-        System.err.println("$message $result ms")
-        return result
     }
 
     data class TestJson(